@@ -0,0 +1,82 @@
+package com.ansh.EventRelay;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.flywaydb.core.Flyway;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Postgres for benchmarks: a Testcontainers instance by default, or an existing database when
+ * {@code -Deventrelay.bench.jdbcUrl} is set. The schema is always brought up to date with the
+ * application's Flyway migrations.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+	private final PostgreSQLContainer<?> container;
+	private final String jdbcUrl;
+	private final String username;
+	private final String password;
+
+	private BenchmarkDatabase(PostgreSQLContainer<?> container, String jdbcUrl, String username, String password) {
+		this.container = container;
+		this.jdbcUrl = jdbcUrl;
+		this.username = username;
+		this.password = password;
+	}
+
+	public static BenchmarkDatabase start() {
+		BenchmarkDatabase database;
+		String jdbcUrl = System.getProperty("eventrelay.bench.jdbcUrl");
+		if (jdbcUrl != null && !jdbcUrl.isBlank()) {
+			database = new BenchmarkDatabase(null, jdbcUrl,
+					System.getProperty("eventrelay.bench.username", "postgres"),
+					System.getProperty("eventrelay.bench.password", "postgres"));
+		} else {
+			PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:15-alpine")
+					.withDatabaseName("event_relay")
+					.withUsername("postgres")
+					.withPassword("postgres");
+			container.start();
+			database = new BenchmarkDatabase(container, container.getJdbcUrl(), container.getUsername(), container.getPassword());
+		}
+
+		Flyway.configure()
+				.dataSource(database.jdbcUrl, database.username, database.password)
+				.load()
+				.migrate();
+		return database;
+	}
+
+	public Connection connect() throws SQLException {
+		return DriverManager.getConnection(jdbcUrl, username, password);
+	}
+
+	/**
+	 * Empties the event tables, including the dedup keys, so re-sent external ids are accepted again.
+	 */
+	public void truncateEvents() throws SQLException {
+		try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+			statement.execute("truncate table webhook_events, webhook_event_payloads, webhook_event_dedup_keys");
+		}
+	}
+
+	public String getJdbcUrl() {
+		return jdbcUrl;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	@Override
+	public void close() {
+		if (container != null) {
+			container.stop();
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.ansh.EventRelay;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Time for a burst of {@code burstSize} signed webhooks, all sent at once, to be acknowledged by
+ * {@code POST /webhooks/{source}}, with Tomcat on its default pool of 200 platform threads and with
+ * {@code spring.threads.virtual.enabled}. On platform threads a burst larger than the pool is
+ * admitted 200 requests at a time, each wave waiting for its own group commit; on virtual threads the
+ * whole burst reaches the ingest batcher together and is bounded by the JDBC pool and the batcher's
+ * queue instead. {@code rejected} in the secondary results counts non-2xx responses, which should stay
+ * at 0 for both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IngestBurstBenchmark {
+	private static final String SOURCE = "bench";
+	private static final String SECRET = "benchmark-secret";
+
+	@Param({"false", "true"})
+	boolean virtualThreads;
+
+	@Param({"100", "1000"})
+	int burstSize;
+
+	private final AtomicLong nextExternalId = new AtomicLong();
+	private BenchmarkDatabase database;
+	private ConfigurableApplicationContext context;
+	private HttpClient client;
+	private URI uri;
+	private Mac mac;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		database = BenchmarkDatabase.start();
+		// DevTools would restart the application in a second class loader and apply the arguments twice.
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		context = new SpringApplicationBuilder(EventRelayApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + database.getJdbcUrl(),
+				"--spring.datasource.username=" + database.getUsername(),
+				"--spring.datasource.password=" + database.getPassword(),
+				"--spring.threads.virtual.enabled=" + virtualThreads,
+				"--spring.task.scheduling.enabled=false",
+				"--eventrelay.worker.engine=none",
+				"--eventrelay.ingest.notify=false",
+				"--eventrelay.webhook.secrets." + SOURCE + "=" + SECRET,
+				"--logging.level.com.ansh.EventRelay=WARN");
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		uri = URI.create("http://localhost:" + port + "/webhooks/" + SOURCE);
+		client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+	}
+
+	@Setup(Level.Iteration)
+	public void truncate() throws SQLException {
+		database.truncateEvents();
+	}
+
+	@Benchmark
+	public int burst(Responses responses) {
+		List<CompletableFuture<HttpResponse<Void>>> sent = new ArrayList<>(burstSize);
+		for (int i = 0; i < burstSize; i++) {
+			byte[] body = ("{\"id\":\"evt_" + nextExternalId.incrementAndGet() + "\",\"type\":\"invoice.paid\"}")
+					.getBytes(StandardCharsets.UTF_8);
+			HttpRequest request = HttpRequest.newBuilder(uri)
+					.timeout(Duration.ofSeconds(30))
+					.header("Content-Type", "application/json")
+					.header("X-Webhook-Signature", Base64.getEncoder().encodeToString(mac.doFinal(body)))
+					.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+					.build();
+			sent.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+		}
+		int accepted = 0;
+		for (CompletableFuture<HttpResponse<Void>> response : sent) {
+			if (response.join().statusCode() / 100 == 2) {
+				accepted++;
+			} else {
+				responses.rejected++;
+			}
+		}
+		return accepted;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+		database.close();
+	}
+
+	/**
+	 * Non-2xx responses of the iteration, reported next to the burst time.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Responses {
+		public long rejected;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			rejected = 0;
+		}
+	}
+}
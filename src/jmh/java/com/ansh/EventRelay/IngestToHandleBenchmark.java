@@ -0,0 +1,120 @@
+package com.ansh.EventRelay;
+
+import com.ansh.EventRelay.webhooks.WebhookIngestionService;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import com.ansh.EventRelay.worker.WebhookEventProcessor;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end throughput of the real application against Postgres: every invocation ingests
+ * {@code batchSize} webhooks through {@link WebhookIngestionService#ingestBatch}, then claims and
+ * handles that many through {@link WebhookEventProcessor#processEligibleBatch} with the default
+ * logging handler. HTTP, signature checks and the background workers are left out, so the number is
+ * what the database path sustains. {@code events} in the secondary results is the handled event
+ * rate; {@code threads} ingest and process concurrently, as several workers would.
+ *
+ * <p>The event tables are truncated before every iteration so their size does not drift between them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class IngestToHandleBenchmark {
+	private static final byte[] PAYLOAD = """
+			{"type":"invoice.paid","data":{"customer":{"id":"cus_42"},"amount":1200,"currency":"EUR"}}"""
+			.getBytes(StandardCharsets.UTF_8);
+
+	@Param({"1", "10", "50"})
+	int batchSize;
+
+	@Param({"10"})
+	int poolSize;
+
+	private final AtomicLong nextExternalId = new AtomicLong();
+	private BenchmarkDatabase database;
+	private ConfigurableApplicationContext context;
+	private WebhookIngestionService ingestion;
+	private WebhookEventProcessor processor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		database = BenchmarkDatabase.start();
+		// Arguments rather than default properties, which application.properties would override.
+		context = new SpringApplicationBuilder(EventRelayApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(
+						"--spring.datasource.url=" + database.getJdbcUrl(),
+						"--spring.datasource.username=" + database.getUsername(),
+						"--spring.datasource.password=" + database.getPassword(),
+						"--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+						"--spring.task.scheduling.enabled=false",
+						"--eventrelay.worker.engine=none",
+						"--eventrelay.ingest.notify=false",
+						"--logging.level.com.ansh.EventRelay=WARN");
+		ingestion = context.getBean(WebhookIngestionService.class);
+		processor = context.getBean(WebhookEventProcessor.class);
+	}
+
+	@Setup(Level.Iteration)
+	public void truncate() throws SQLException {
+		database.truncateEvents();
+	}
+
+	@Benchmark
+	public int ingestClaimHandle(HandledEvents handled) {
+		List<IngestRequest> requests = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			requests.add(new IngestRequest("bench", "evt_" + nextExternalId.incrementAndGet(), PAYLOAD));
+		}
+		ingestion.ingestBatch(requests);
+		int processed = processor.processEligibleBatch(batchSize);
+		handled.events += processed;
+		return processed;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+		database.close();
+	}
+
+	/**
+	 * Events handled per second, reported next to the batch rate.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class HandledEvents {
+		public long events;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			events = 0;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package com.ansh.EventRelay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load generator for {@code POST /webhooks/{source}} against the real application and Postgres,
+ * started the same way as the benchmarks (Testcontainers unless {@code -Deventrelay.bench.jdbcUrl}
+ * is set). The event tables are truncated first.
+ *
+ * <p>Traffic is generated up front from {@code seed}, so two runs with the same options send the
+ * same bytes in the same order: sources are picked with weights {@code 1, 1/2, 1/3, ...}, a
+ * {@code duplicates} fraction re-sends an earlier request unchanged, and a {@code failures} fraction
+ * carries {@code "simulate_failure":true} and an id starting with {@code fail_}. Every body is
+ * signed with its source's secret the way {@code SignatureVerifier} expects.
+ *
+ * <p>Requests are sent on an open model at {@code rate} per second, independent of how fast
+ * responses come back. Latency is measured from the time a request was due rather than the time it
+ * was sent, so a stalled server shows up in the percentiles instead of slowing the generator down
+ * (no coordinated omission). Requests due during {@code warmup} are sent but not recorded.
+ *
+ * <p>After the last response the harness waits up to {@code drainTimeout} for every event that is
+ * not meant to fail to reach SUCCESS, and reports the delivery lag {@code updated_at - created_at}
+ * of the SUCCESS events sent after the warmup. The summary, including the number of events in
+ * every state at the end, is printed and written as JSON to {@code output}.
+ *
+ * <p>Options are {@code key=value} arguments; arguments starting with {@code --} are passed to the
+ * application, e.g. {@code --eventrelay.worker.concurrency=8}.
+ */
+public final class WebhookLoadTest {
+	private static final String SECRET_PREFIX = "load-secret-";
+
+	private final Options options;
+	private final URI baseUri;
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	private final Histogram ingestLatency = new ConcurrentHistogram(3);
+	private final AtomicLong accepted = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong unavailable = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+
+	private WebhookLoadTest(Options options, URI baseUri) {
+		this.options = options;
+		this.baseUri = baseUri;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = Options.parse(args);
+		try (BenchmarkDatabase database = BenchmarkDatabase.start()) {
+			database.truncateEvents();
+			try (ConfigurableApplicationContext context = startApplication(database, options)) {
+				int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+				WebhookLoadTest loadTest = new WebhookLoadTest(options, URI.create("http://localhost:" + port + "/webhooks/"));
+
+				List<LoadRequest> requests = generate(options);
+				System.out.printf("Sending %d requests at %d/s to %d source(s)%n",
+						requests.size(), options.rate, options.sources);
+				double elapsedSeconds = loadTest.send(requests);
+				Histogram deliveryLag = loadTest.awaitDelivery(database, requests);
+				loadTest.report(requests, elapsedSeconds, deliveryLag, countStates(database));
+			}
+		}
+	}
+
+	private static ConfigurableApplicationContext startApplication(BenchmarkDatabase database, Options options) {
+		// DevTools would restart the application in a second class loader and apply the arguments twice.
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		List<String> args = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--spring.datasource.url=" + database.getJdbcUrl(),
+				"--spring.datasource.username=" + database.getUsername(),
+				"--spring.datasource.password=" + database.getPassword(),
+				"--logging.level.com.ansh.EventRelay=WARN"));
+		for (int i = 0; i < options.sources; i++) {
+			args.add("--eventrelay.webhook.secrets." + source(i) + "=" + SECRET_PREFIX + i);
+		}
+		// Last, so the caller can override any of the above.
+		args.addAll(options.applicationArgs);
+		return new SpringApplicationBuilder(EventRelayApplication.class).run(args.toArray(String[]::new));
+	}
+
+	private static List<LoadRequest> generate(Options options) throws Exception {
+		Random random = new Random(options.seed);
+		int total = (int) (options.rate * (options.warmup.toMillis() + options.duration.toMillis()) / 1000);
+		int warmupRequests = (int) (options.rate * options.warmup.toMillis() / 1000);
+
+		double[] cumulativeWeights = new double[options.sources];
+		double sum = 0;
+		for (int i = 0; i < options.sources; i++) {
+			sum += 1.0 / (i + 1);
+			cumulativeWeights[i] = sum;
+		}
+		Mac[] macs = new Mac[options.sources];
+		for (int i = 0; i < options.sources; i++) {
+			macs[i] = Mac.getInstance("HmacSHA256");
+			macs[i].init(new SecretKeySpec((SECRET_PREFIX + i).getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		}
+		String padding = "x".repeat(Math.max(0, options.payloadBytes - 160));
+
+		List<LoadRequest> requests = new ArrayList<>(total);
+		for (int n = 0; n < total; n++) {
+			boolean measured = n >= warmupRequests;
+			if (n > 0 && random.nextDouble() < options.duplicates) {
+				LoadRequest original = requests.get(random.nextInt(n));
+				requests.add(new LoadRequest(original.source, original.body, original.signature, Kind.DUPLICATE, measured));
+				continue;
+			}
+			int sourceIndex = pickSource(cumulativeWeights, random.nextDouble() * sum);
+			boolean fail = random.nextDouble() < options.failures;
+			String json = "{\"id\":\"" + (fail ? "fail_" : "evt_") + n + "\",\"type\":\"invoice.paid\""
+					+ (fail ? ",\"simulate_failure\":true" : "")
+					+ ",\"data\":{\"customer\":{\"id\":\"cus_" + random.nextInt(10_000) + "\"},\"amount\":"
+					+ random.nextInt(100_000) + ",\"padding\":\"" + padding + "\"}}";
+			byte[] body = json.getBytes(StandardCharsets.UTF_8);
+			String signature = Base64.getEncoder().encodeToString(macs[sourceIndex].doFinal(body));
+			requests.add(new LoadRequest(source(sourceIndex), body, signature, fail ? Kind.FAILURE : Kind.EVENT, measured));
+		}
+		return requests;
+	}
+
+	private static int pickSource(double[] cumulativeWeights, double point) {
+		for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+			if (point < cumulativeWeights[i]) {
+				return i;
+			}
+		}
+		return cumulativeWeights.length - 1;
+	}
+
+	private static String source(int index) {
+		return "load_" + index;
+	}
+
+	/**
+	 * Sends every request at its due time and returns the seconds from the first due time to the
+	 * last response.
+	 */
+	private double send(List<LoadRequest> requests) throws InterruptedException {
+		Semaphore inFlight = new Semaphore(options.maxInFlight);
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+		long startNanos = System.nanoTime();
+		for (int i = 0; i < requests.size(); i++) {
+			LoadRequest request = requests.get(i);
+			long dueNanos = startNanos + i * intervalNanos;
+			long waitNanos = dueNanos - System.nanoTime();
+			if (waitNanos > 0) {
+				LockSupport.parkNanos(waitNanos);
+			}
+			inFlight.acquire();
+			HttpRequest httpRequest = HttpRequest.newBuilder(baseUri.resolve(request.source))
+					.timeout(Duration.ofSeconds(30))
+					.header("Content-Type", "application/json")
+					.header("X-Webhook-Signature", request.signature)
+					.POST(HttpRequest.BodyPublishers.ofByteArray(request.body))
+					.build();
+			client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+				long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos);
+				inFlight.release();
+				if (!request.measured) {
+					return;
+				}
+				ingestLatency.recordValue(latencyMicros);
+				if (error != null) {
+					errors.incrementAndGet();
+				} else if (response.statusCode() / 100 == 2) {
+					accepted.incrementAndGet();
+				} else if (response.statusCode() / 100 == 4) {
+					rejected.incrementAndGet();
+				} else {
+					unavailable.incrementAndGet();
+				}
+			});
+		}
+		inFlight.acquire(options.maxInFlight);
+		long warmupNanos = options.warmup.toNanos();
+		return (System.nanoTime() - startNanos - warmupNanos) / 1e9;
+	}
+
+	private Histogram awaitDelivery(BenchmarkDatabase database, List<LoadRequest> requests)
+			throws SQLException, InterruptedException {
+		long firstMeasured = requests.stream().takeWhile(request -> !request.measured).count();
+		Histogram lag = new Histogram(3);
+		try (Connection connection = database.connect()) {
+			long deadline = System.nanoTime() + options.drainTimeout.toNanos();
+			long pending;
+			while ((pending = countPending(connection)) > 0 && System.nanoTime() < deadline) {
+				Thread.sleep(250);
+			}
+			if (pending > 0) {
+				System.out.printf("%d event(s) still pending after %s; delivery lag covers the rest%n",
+						pending, options.drainTimeout);
+			}
+			try (PreparedStatement statement = connection.prepareStatement("""
+					select (extract(epoch from updated_at - created_at) * 1000000)::bigint
+					from webhook_events
+					where state = 'SUCCESS'
+					  and substring(external_event_id from '[0-9]+$')::bigint >= ?
+					""")) {
+				statement.setLong(1, firstMeasured);
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						lag.recordValue(Math.max(0, resultSet.getLong(1)));
+					}
+				}
+			}
+		}
+		return lag;
+	}
+
+	private static long countPending(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("""
+						select count(*) from webhook_events
+						where state in ('RECEIVED', 'PROCESSING') and external_event_id not like 'fail\\_%'
+						""")) {
+			resultSet.next();
+			return resultSet.getLong(1);
+		}
+	}
+
+	private static Map<String, Long> countStates(BenchmarkDatabase database) throws SQLException {
+		Map<String, Long> states = new LinkedHashMap<>();
+		try (Connection connection = database.connect();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(
+						"select state, count(*) from webhook_events group by state order by state")) {
+			while (resultSet.next()) {
+				states.put(resultSet.getString(1), resultSet.getLong(2));
+			}
+		}
+		return states;
+	}
+
+	private void report(List<LoadRequest> requests, double elapsedSeconds, Histogram deliveryLag,
+			Map<String, Long> states) throws IOException {
+		long measured = requests.stream().filter(request -> request.measured).count();
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("options", options.describe());
+		result.put("requests", measured);
+		result.put("duplicates", requests.stream().filter(r -> r.measured && r.kind == Kind.DUPLICATE).count());
+		result.put("failures", requests.stream().filter(r -> r.measured && r.kind == Kind.FAILURE).count());
+		result.put("accepted", accepted.get());
+		result.put("rejected", rejected.get());
+		result.put("unavailable", unavailable.get());
+		result.put("errors", errors.get());
+		result.put("throughputPerSecond", Math.round(measured / elapsedSeconds * 10) / 10.0);
+		result.put("ingestLatencyMillis", percentiles(ingestLatency));
+		result.put("deliveryLagMillis", percentiles(deliveryLag));
+		result.put("eventStates", states);
+
+		ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		String json = objectMapper.writeValueAsString(result);
+		System.out.println(json);
+		Files.createDirectories(options.output.toAbsolutePath().getParent());
+		Files.writeString(options.output, json);
+		System.out.println("Written to " + options.output);
+	}
+
+	private static Map<String, Object> percentiles(Histogram histogram) {
+		Map<String, Object> percentiles = new LinkedHashMap<>();
+		percentiles.put("count", histogram.getTotalCount());
+		percentiles.put("p50", millis(histogram.getValueAtPercentile(50)));
+		percentiles.put("p90", millis(histogram.getValueAtPercentile(90)));
+		percentiles.put("p99", millis(histogram.getValueAtPercentile(99)));
+		percentiles.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+		percentiles.put("max", millis(histogram.getMaxValue()));
+		return percentiles;
+	}
+
+	private static double millis(long micros) {
+		return Math.round(micros / 10.0) / 100.0;
+	}
+
+	private enum Kind {
+		EVENT, DUPLICATE, FAILURE
+	}
+
+	private record LoadRequest(String source, byte[] body, String signature, Kind kind, boolean measured) {
+	}
+
+	private static final class Options {
+		private int rate = 200;
+		private Duration duration = Duration.ofSeconds(60);
+		private Duration warmup = Duration.ofSeconds(10);
+		private int sources = 4;
+		private double duplicates = 0.05;
+		private double failures = 0.01;
+		private int payloadBytes = 1024;
+		private int maxInFlight = 512;
+		private long seed = 42;
+		private Duration drainTimeout = Duration.ofSeconds(60);
+		private Path output = Path.of("target/load-test-result.json");
+		private final List<String> applicationArgs = new ArrayList<>();
+
+		private static Options parse(String[] args) {
+			Options options = new Options();
+			for (String arg : args) {
+				if (arg.startsWith("--")) {
+					options.applicationArgs.add(arg);
+					continue;
+				}
+				int separator = arg.indexOf('=');
+				if (separator < 0) {
+					throw new IllegalArgumentException("Expected key=value or --property=value: " + arg);
+				}
+				String value = arg.substring(separator + 1);
+				switch (arg.substring(0, separator)) {
+					case "rate" -> options.rate = Integer.parseInt(value);
+					case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+					case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+					case "sources" -> options.sources = Integer.parseInt(value);
+					case "duplicates" -> options.duplicates = Double.parseDouble(value);
+					case "failures" -> options.failures = Double.parseDouble(value);
+					case "payloadBytes" -> options.payloadBytes = Integer.parseInt(value);
+					case "maxInFlight" -> options.maxInFlight = Integer.parseInt(value);
+					case "seed" -> options.seed = Long.parseLong(value);
+					case "drainTimeout" -> options.drainTimeout = DurationStyle.detectAndParse(value);
+					case "output" -> options.output = Path.of(value);
+					default -> throw new IllegalArgumentException("Unknown option: " + arg);
+				}
+			}
+			if (options.rate < 1 || options.sources < 1 || options.maxInFlight < 1) {
+				throw new IllegalArgumentException("rate, sources and maxInFlight must be at least 1");
+			}
+			return options;
+		}
+
+		private Map<String, Object> describe() {
+			Map<String, Object> describe = new LinkedHashMap<>();
+			describe.put("rate", rate);
+			describe.put("duration", duration.toString());
+			describe.put("warmup", warmup.toString());
+			describe.put("sources", sources);
+			describe.put("duplicates", duplicates);
+			describe.put("failures", failures);
+			describe.put("payloadBytes", payloadBytes);
+			describe.put("maxInFlight", maxInFlight);
+			describe.put("seed", seed);
+			describe.put("applicationArgs", applicationArgs);
+			return describe;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.ansh.EventRelay.events;
+
+import com.ansh.EventRelay.BenchmarkDatabase;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link WebhookEventRepository#claimNextEligibleEvents} as terminal rows pile up. Every
+ * trial seeds {@code rows} events of which only {@code pendingRows} are claimable, spread evenly
+ * across the table, with half of the FAILED ones scheduled for a retry in the future. Each invocation
+ * runs the real claim statement and rolls it back, so the table looks the same to every iteration.
+ * With the partial eligibility index the time per claim should not depend on {@code rows}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimQueryBenchmark {
+	@Param({"100000", "1000000", "10000000"})
+	long rows;
+
+	@Param({"10000"})
+	long pendingRows;
+
+	@Param({"10"})
+	int batchSize;
+
+	private BenchmarkDatabase database;
+	private Connection connection;
+	private NativeQueryStatement claimQuery;
+	private PreparedStatement claim;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		database = BenchmarkDatabase.start();
+		try (Connection setup = database.connect(); Statement statement = setup.createStatement()) {
+			statement.execute("truncate table webhook_events");
+			statement.execute("""
+					insert into webhook_events
+					    (id, source, external_event_id, state, retry_count, next_retry_at, created_at, updated_at)
+					select gen_random_uuid(),
+					       'source_' || (g %% 8),
+					       'evt_' || g,
+					       case when g %% %1$d <> 0 then 'SUCCESS'
+					            when (g / %1$d) %% 4 = 0 then 'FAILED'
+					            else 'RECEIVED' end,
+					       case when g %% %1$d = 0 and (g / %1$d) %% 4 = 0 then 1 else 0 end,
+					       case when g %% %1$d <> 0 or (g / %1$d) %% 4 <> 0 then null
+					            when (g / %1$d) %% 8 = 0 then now() + interval '1 hour'
+					            else now() - interval '1 minute' end,
+					       now() - (%2$d - g) * interval '1 millisecond',
+					       now()
+					from generate_series(1, %2$d) as g
+					""".formatted(Math.max(1, rows / pendingRows), rows));
+			statement.execute("vacuum analyze webhook_events");
+		}
+
+		claimQuery = NativeQueryStatement.of(WebhookEventRepository.class, "claimNextEligibleEvents");
+		connection = database.connect();
+		connection.setAutoCommit(false);
+		claim = claimQuery.prepare(connection);
+		claimQuery.bind(claim, "limit", batchSize);
+		claimQuery.bind(claim, "leaseOwner", "benchmark");
+		claimQuery.bind(claim, "leaseSeconds", 60L);
+		claimQuery.bind(claim, "pausedSources", new String[0]);
+		printPlan();
+	}
+
+	@Benchmark
+	public int claimBatch() throws SQLException {
+		int claimed = 0;
+		try (ResultSet resultSet = claim.executeQuery()) {
+			while (resultSet.next()) {
+				claimed++;
+			}
+		}
+		connection.rollback();
+		return claimed;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		claim.close();
+		connection.close();
+		database.close();
+	}
+
+	private void printPlan() throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("explain (analyze, buffers) " + claimQuery.sql())) {
+			claimQuery.bind(statement, "limit", batchSize);
+			claimQuery.bind(statement, "leaseOwner", "benchmark");
+			claimQuery.bind(statement, "leaseSeconds", 60L);
+			claimQuery.bind(statement, "pausedSources", new String[0]);
+			try (ResultSet plan = statement.executeQuery()) {
+				System.out.println();
+				while (plan.next()) {
+					System.out.println(plan.getString(1));
+				}
+			}
+		} finally {
+			connection.rollback();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.ansh.EventRelay.events;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * Prepares the SQL of a native {@link Query} declared on a repository method as a plain JDBC
+ * statement, so benchmarks always measure the query the application actually ships.
+ */
+final class NativeQueryStatement {
+	private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<!:):([A-Za-z][A-Za-z0-9_]*)");
+
+	private final String sql;
+	private final List<String> parameterNames;
+
+	private NativeQueryStatement(String sql, List<String> parameterNames) {
+		this.sql = sql;
+		this.parameterNames = parameterNames;
+	}
+
+	static NativeQueryStatement of(Class<?> repository, String methodName) {
+		for (Method method : repository.getMethods()) {
+			Query query = method.getAnnotation(Query.class);
+			if (method.getName().equals(methodName) && query != null && query.nativeQuery()) {
+				List<String> names = new ArrayList<>();
+				Matcher matcher = NAMED_PARAMETER.matcher(query.value());
+				StringBuilder jdbcSql = new StringBuilder();
+				while (matcher.find()) {
+					names.add(matcher.group(1));
+					matcher.appendReplacement(jdbcSql, "?");
+				}
+				matcher.appendTail(jdbcSql);
+				return new NativeQueryStatement(jdbcSql.toString(), names);
+			}
+		}
+		throw new IllegalArgumentException("No native @Query named " + methodName + " on " + repository.getName());
+	}
+
+	String sql() {
+		return sql;
+	}
+
+	PreparedStatement prepare(Connection connection) throws SQLException {
+		return connection.prepareStatement(sql);
+	}
+
+	void bind(PreparedStatement statement, String name, Object value) throws SQLException {
+		boolean bound = false;
+		for (int i = 0; i < parameterNames.size(); i++) {
+			if (parameterNames.get(i).equals(name)) {
+				statement.setObject(i + 1, value);
+				bound = true;
+			}
+		}
+		if (!bound) {
+			throw new IllegalArgumentException("Query has no parameter named " + name);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.ansh.EventRelay.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Cost of one page of {@code GET /events}: {@link WebhookEventDto#from} over {@code pageSize}
+ * entities, and the same mapping followed by JSON serialization with the ObjectMapper settings the
+ * application uses for {@code java.time} values. The difference between the two is what Jackson
+ * adds per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookEventDtoBenchmark {
+	@Param({"1", "50", "500"})
+	int pageSize;
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	private List<WebhookEvent> page;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		page = new ArrayList<>(pageSize);
+		Instant now = Instant.now();
+		for (int i = 0; i < pageSize; i++) {
+			WebhookEvent event = new WebhookEvent("source_" + (i % 8), "evt_" + i, "{}", WebhookEventState.RECEIVED);
+			ReflectionTestUtils.setField(event, "id", UUID.randomUUID());
+			ReflectionTestUtils.setField(event, "createdAt", now);
+			event.markFailed("java.lang.IllegalStateException: downstream returned 500", 1, now.plusSeconds(30), now);
+			page.add(event);
+		}
+	}
+
+	@Benchmark
+	public List<WebhookEventDto> map() {
+		List<WebhookEventDto> dtos = new ArrayList<>(page.size());
+		for (WebhookEvent event : page) {
+			dtos.add(WebhookEventDto.from(event));
+		}
+		return dtos;
+	}
+
+	@Benchmark
+	public byte[] mapAndSerialize() throws Exception {
+		return objectMapper.writeValueAsBytes(map());
+	}
+}
@@ -0,0 +1,77 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-request body handling before the database: extracting {@code id} and producing the payload
+ * that is bound to the insert. {@code treeAndString} is the previous path (a full {@link JsonNode}
+ * tree plus a {@code String} copy of the body); {@code streaming} is {@link WebhookEventIdExtractor}
+ * with the raw bytes passed through. Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}.
+ * {@code idPosition=last} is the worst case for the streaming parser, which then has to skip the
+ * whole document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBodyBenchmark {
+	@Param({"1024", "16384", "262144", "1048576"})
+	int payloadBytes;
+
+	@Param({"first", "last"})
+	String idPosition;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final WebhookEventIdExtractor extractor = new WebhookEventIdExtractor(objectMapper);
+	private byte[] body;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		StringBuilder items = new StringBuilder();
+		for (int i = 0; items.length() < payloadBytes; i++) {
+			if (i > 0) {
+				items.append(',');
+			}
+			items.append("{\"id\":\"item_").append(i).append("\",\"amount\":").append(i * 100)
+					.append(",\"currency\":\"EUR\",\"description\":\"line item number ").append(i).append("\"}");
+		}
+		String data = "\"type\":\"invoice.paid\",\"data\":{\"items\":[" + items + "]}";
+		String json = idPosition.equals("first")
+				? "{\"id\":\"evt_benchmark\"," + data + "}"
+				: "{" + data + ",\"id\":\"evt_benchmark\"}";
+		body = json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public void treeAndString(Blackhole blackhole) throws IOException {
+		JsonNode root = objectMapper.readTree(body);
+		JsonNode idNode = root.get("id");
+		blackhole.consume(idNode == null || idNode.isNull() ? null : idNode.asText(null));
+		blackhole.consume(new String(body, StandardCharsets.UTF_8));
+	}
+
+	@Benchmark
+	public void streaming(Blackhole blackhole) {
+		blackhole.consume(extractor.extract(body));
+		blackhole.consume(body);
+	}
+}
@@ -0,0 +1,93 @@
+package com.ansh.EventRelay.webhooks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pooled {@link SignatureVerifier} against the previous implementation, which looked up a
+ * {@link Mac}, expanded the key and decoded the header into a fresh array on every call. Run with
+ * {@code -prof gc} to compare {@code gc.alloc.rate.norm}: the pooled verifier should report the same
+ * small allocation, the decoded signature and the {@link Mac} result, at every payload size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureVerifierBenchmark {
+	private static final String SECRET = "benchmark-secret";
+
+	@Param({"256", "1024", "16384", "262144", "1048576"})
+	int payloadBytes;
+
+	private final SignatureVerifier verifier = new SignatureVerifier();
+	private byte[] body;
+	private String signature;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		body = new byte[payloadBytes];
+		ThreadLocalRandom.current().nextBytes(body);
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		signature = Base64.getEncoder().encodeToString(mac.doFinal(body));
+	}
+
+	@Benchmark
+	public boolean pooled() {
+		return verifier.isValid(body, SECRET, signature);
+	}
+
+	@Benchmark
+	public boolean perCallMac() {
+		return legacyIsValid(body, SECRET, signature);
+	}
+
+	/**
+	 * The implementation {@link SignatureVerifier} replaced, kept verbatim as the baseline.
+	 */
+	private static boolean legacyIsValid(byte[] rawBody, String secret, String providedSignatureBase64) {
+		if (secret == null || secret.isBlank()) {
+			return false;
+		}
+		if (providedSignatureBase64 == null || providedSignatureBase64.isBlank()) {
+			return false;
+		}
+
+		byte[] expected;
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+			expected = mac.doFinal(rawBody);
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			throw new IllegalStateException("Unable to compute HMAC", e);
+		}
+		byte[] provided;
+		try {
+			provided = Base64.getDecoder().decode(providedSignatureBase64);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		return MessageDigest.isEqual(expected, provided);
+	}
+}
@@ -2,10 +2,13 @@ package com.ansh.EventRelay;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// The reactive ingest path manages its own R2DBC pool: a ConnectionFactory bean would make Boot back
+// off the JDBC DataSource that everything else runs on.
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @ConfigurationPropertiesScan
 @EnableScheduling
 public class EventRelayApplication {
@@ -0,0 +1,11 @@
+package com.ansh.EventRelay.events;
+
+public interface EventCount {
+	String getState();
+
+	String getSource();
+
+	int getRetryCount();
+
+	long getEvents();
+}
@@ -0,0 +1,48 @@
+package com.ansh.EventRelay.events;
+
+import com.ansh.EventRelay.webhooks.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in {@code (created_at, id)} order. Encoded as an opaque URL-safe token so that
+ * clients pass it back unchanged.
+ */
+public record EventCursor(Instant createdAt, UUID id) {
+	/**
+	 * Position before every event. Postgres cannot represent {@link Instant#MIN}, and no event predates
+	 * the epoch.
+	 */
+	public static final EventCursor START = new EventCursor(Instant.EPOCH, new UUID(0L, 0L));
+
+	public static EventCursor after(WebhookEventDto event) {
+		return new EventCursor(event.createdAt(), event.id());
+	}
+
+	public static EventCursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return START;
+		}
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = decoded.indexOf('|');
+			if (separator < 0) {
+				throw new BadRequestException("Invalid cursor");
+			}
+			return new EventCursor(
+					Instant.parse(decoded.substring(0, separator)),
+					UUID.fromString(decoded.substring(separator + 1))
+			);
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+
+	public String encode() {
+		String raw = createdAt + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
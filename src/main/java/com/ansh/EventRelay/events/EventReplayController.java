@@ -0,0 +1,80 @@
+package com.ansh.EventRelay.events;
+
+import com.ansh.EventRelay.webhooks.BadRequestException;
+import com.ansh.EventRelay.webhooks.NotFoundException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Bulk replay for operators. Anyone who can reach it can requeue every dead letter, so it is only
+ * served with {@code eventrelay.replay.enabled=true}.
+ */
+@RestController
+@ConditionalOnProperty(name = "eventrelay.replay.enabled", havingValue = "true")
+@RequestMapping("/admin/events/replay")
+public class EventReplayController {
+	private final EventReplayService replayService;
+
+	public EventReplayController(EventReplayService replayService) {
+		this.replayService = replayService;
+	}
+
+	/**
+	 * Queues a replay of the matching events and returns {@code 202} with the job, whose progress can
+	 * be followed at {@code GET /admin/events/replay/{jobId}}.
+	 */
+	@PostMapping
+	public ResponseEntity<ReplayJob> replay(@RequestBody ReplayRequest request) {
+		List<WebhookEventState> states = request.states() == null ? null : request.states().stream()
+				.map(EventReplayController::parseState)
+				.toList();
+		ReplayJob job = replayService.submit(
+				states, blankToNull(request.source()), request.from(), request.to(), blankToNull(request.failureReason()));
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+	}
+
+	@GetMapping
+	public List<ReplayJob> jobs() {
+		return replayService.list();
+	}
+
+	@GetMapping("/{jobId}")
+	public ReplayJob job(@PathVariable("jobId") String jobId) {
+		UUID id;
+		try {
+			id = UUID.fromString(jobId);
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid job ID");
+		}
+		return replayService.find(id).orElseThrow(() -> new NotFoundException("Replay job not found"));
+	}
+
+	/**
+	 * Every field is optional; without {@code states} only {@code DEAD_LETTER} events are replayed.
+	 * {@code from} is inclusive and {@code to} exclusive, both matched against {@code created_at}.
+	 */
+	public record ReplayRequest(List<String> states, String source, Instant from, Instant to, String failureReason) {
+	}
+
+	private static WebhookEventState parseState(String state) {
+		try {
+			return WebhookEventState.valueOf(state);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			throw new BadRequestException("Invalid state");
+		}
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.isBlank() ? null : value;
+	}
+}
@@ -0,0 +1,141 @@
+package com.ansh.EventRelay.events;
+
+import com.ansh.EventRelay.webhooks.BadRequestException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves {@code DEAD_LETTER} and {@code FAILED} events back to {@code RECEIVED} in bulk, e.g. after an
+ * incident. A replay walks the matching rows in {@code (created_at, id)} order in chunks of
+ * {@code chunkSize}, each one short set-based UPDATE in its own transaction, so only one chunk of rows
+ * is locked at a time. Rows that are locked when the replay reaches them are skipped and counted, and
+ * the walk goes on until the scan runs out of rows. Between chunks it sleeps as needed to stay under
+ * {@code ratePerSecond}, which keeps a large replay from flooding the workers ahead of live traffic.
+ *
+ * <p>Jobs run one after another on a single background thread, and their progress is kept in memory
+ * on the node that accepted them. Only created with {@code eventrelay.replay.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "eventrelay.replay.enabled", havingValue = "true")
+public class EventReplayService implements DisposableBean {
+	private static final Logger log = LoggerFactory.getLogger(EventReplayService.class);
+	private static final int RETAINED_JOBS = 100;
+	private static final List<WebhookEventState> REPLAYABLE = List.of(WebhookEventState.DEAD_LETTER, WebhookEventState.FAILED);
+
+	private final WebhookEventRepository repository;
+	private final int chunkSize;
+	private final double ratePerSecond;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(
+			Thread.ofPlatform().name("event-replay").daemon(true).factory());
+	private final Map<UUID, ReplayJob> jobs = new LinkedHashMap<>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<UUID, ReplayJob> eldest) {
+			return size() > RETAINED_JOBS;
+		}
+	};
+
+	public EventReplayService(
+			WebhookEventRepository repository,
+			@Value("${eventrelay.replay.chunkSize:500}") int chunkSize,
+			@Value("${eventrelay.replay.ratePerSecond:1000}") double ratePerSecond
+	) {
+		if (chunkSize < 1 || ratePerSecond <= 0) {
+			throw new IllegalArgumentException("eventrelay.replay.chunkSize and ratePerSecond must be positive");
+		}
+		this.repository = repository;
+		this.chunkSize = chunkSize;
+		this.ratePerSecond = ratePerSecond;
+	}
+
+	public ReplayJob submit(List<WebhookEventState> states, String source, Instant from, Instant to, String failureReason) {
+		List<WebhookEventState> replayed = states == null || states.isEmpty() ? List.of(WebhookEventState.DEAD_LETTER) : states;
+		if (!REPLAYABLE.containsAll(replayed)) {
+			throw new BadRequestException("Only DEAD_LETTER and FAILED events can be replayed");
+		}
+		if (from != null && to != null && !from.isBefore(to)) {
+			throw new BadRequestException("from must be before to");
+		}
+
+		ReplayJob job = new ReplayJob(replayed.stream().distinct().toList(), source, from, to, failureReason);
+		synchronized (jobs) {
+			jobs.put(job.getId(), job);
+		}
+		executor.submit(() -> run(job));
+		log.info("Replay queued job={} states={} source={} from={} to={} failure_reason={}",
+			job.getId(), job.getStates(), source, from, to, failureReason);
+		return job;
+	}
+
+	public Optional<ReplayJob> find(UUID jobId) {
+		synchronized (jobs) {
+			return Optional.ofNullable(jobs.get(jobId));
+		}
+	}
+
+	public List<ReplayJob> list() {
+		synchronized (jobs) {
+			return new ArrayList<>(jobs.values());
+		}
+	}
+
+	void run(ReplayJob job) {
+		job.started();
+		long startNanos = System.nanoTime();
+		try {
+			for (WebhookEventState state : job.getStates()) {
+				EventCursor cursor = EventCursor.START;
+				List<ReplayedEvent> chunk;
+				do {
+					chunk = repository.replayEvents(state.name(), job.getSource(), job.getFrom(), job.getTo(),
+							job.getFailureReason(), cursor.createdAt(), cursor.id(), chunkSize);
+					if (!chunk.isEmpty()) {
+						ReplayedEvent last = chunk.getLast();
+						cursor = new EventCursor(last.getCreatedAt(), last.getId());
+						int replayed = (int) chunk.stream().filter(ReplayedEvent::getReplayed).count();
+						job.addReplayed(replayed);
+						job.addSkipped(chunk.size() - replayed);
+						pace(startNanos, job.getReplayed());
+					}
+				} while (chunk.size() == chunkSize);
+			}
+			job.finished(null);
+			log.info("Replay completed job={} replayed={} skipped={}", job.getId(), job.getReplayed(), job.getSkipped());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			job.finished("Interrupted");
+		} catch (RuntimeException e) {
+			job.finished(e.getClass().getSimpleName() + ": " + e.getMessage());
+			log.warn("Replay failed job={} replayed={}", job.getId(), job.getReplayed(), e);
+		}
+	}
+
+	/**
+	 * Sleeps until {@code replayed} events are no more than {@code ratePerSecond} allows since the start.
+	 */
+	private void pace(long startNanos, long replayed) throws InterruptedException {
+		long dueNanos = startNanos + (long) (replayed / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+		long waitNanos = dueNanos - System.nanoTime();
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+}
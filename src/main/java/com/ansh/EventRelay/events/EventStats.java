@@ -0,0 +1,21 @@
+package com.ansh.EventRelay.events;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of {@code GET /events/stats}. {@code retryHistogram} maps each state to the number of
+ * events in it per retry count; {@code oldestPendingAgeSeconds} is how long the longest-waiting due
+ * event has been eligible, 0 when nothing is due.
+ */
+public record EventStats(
+		Instant generatedAt,
+		Map<WebhookEventState, Long> states,
+		double oldestPendingAgeSeconds,
+		Map<WebhookEventState, Map<Integer, Long>> retryHistogram,
+		List<SourceStats> sources
+) {
+	public record SourceStats(String source, Map<WebhookEventState, Long> states, double oldestPendingAgeSeconds) {
+	}
+}
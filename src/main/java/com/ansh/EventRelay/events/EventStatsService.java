@@ -0,0 +1,83 @@
+package com.ansh.EventRelay.events;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds {@link EventStats} from the counters that the {@code webhook_events} triggers keep up to
+ * date, so a snapshot costs one read of the (small) counter tables plus one index probe per source with
+ * pending events, however many events there are. Also rolls the trigger deltas up every
+ * {@code eventrelay.stats.rollupMs} so that the delta table stays small.
+ */
+@Component
+public class EventStatsService {
+	private static final Logger log = LoggerFactory.getLogger(EventStatsService.class);
+
+	private final WebhookEventRepository repository;
+
+	public EventStatsService(WebhookEventRepository repository) {
+		this.repository = repository;
+	}
+
+	public EventStats snapshot() {
+		Map<WebhookEventState, Long> states = emptyStateCounts();
+		Map<WebhookEventState, Map<Integer, Long>> retryHistogram = new EnumMap<>(WebhookEventState.class);
+		Map<String, Map<WebhookEventState, Long>> sourceStates = new TreeMap<>();
+		for (EventCount count : repository.countEvents()) {
+			WebhookEventState state = WebhookEventState.valueOf(count.getState());
+			states.merge(state, count.getEvents(), Long::sum);
+			retryHistogram.computeIfAbsent(state, key -> new TreeMap<>())
+					.merge(count.getRetryCount(), count.getEvents(), Long::sum);
+			sourceStates.computeIfAbsent(count.getSource(), key -> emptyStateCounts())
+					.merge(state, count.getEvents(), Long::sum);
+		}
+
+		List<String> pendingSources = new ArrayList<>();
+		sourceStates.forEach((source, counts) -> {
+			if (counts.get(WebhookEventState.RECEIVED) + counts.get(WebhookEventState.FAILED) > 0) {
+				pendingSources.add(source);
+			}
+		});
+		Map<String, Double> ages = new HashMap<>();
+		if (!pendingSources.isEmpty()) {
+			for (PendingAge age : repository.findOldestPendingAges(pendingSources.toArray(String[]::new))) {
+				ages.put(age.getSource(), age.getAgeSeconds());
+			}
+		}
+
+		List<EventStats.SourceStats> sources = new ArrayList<>(sourceStates.size());
+		double oldest = 0;
+		for (Map.Entry<String, Map<WebhookEventState, Long>> entry : sourceStates.entrySet()) {
+			double age = ages.getOrDefault(entry.getKey(), 0d);
+			oldest = Math.max(oldest, age);
+			sources.add(new EventStats.SourceStats(entry.getKey(), entry.getValue(), age));
+		}
+		return new EventStats(Instant.now(), states, oldest, retryHistogram, sources);
+	}
+
+	@Scheduled(fixedDelayString = "${eventrelay.stats.rollupMs:1000}")
+	public void rollup() {
+		try {
+			repository.rollupEventCounts();
+		} catch (RuntimeException e) {
+			log.warn("Failed to roll up event counts", e);
+		}
+	}
+
+	private static Map<WebhookEventState, Long> emptyStateCounts() {
+		Map<WebhookEventState, Long> counts = new EnumMap<>(WebhookEventState.class);
+		for (WebhookEventState state : WebhookEventState.values()) {
+			counts.put(state, 0L);
+		}
+		return counts;
+	}
+}
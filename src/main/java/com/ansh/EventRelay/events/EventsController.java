@@ -2,8 +2,17 @@ package com.ansh.EventRelay.events;
 
 import com.ansh.EventRelay.webhooks.BadRequestException;
 import com.ansh.EventRelay.webhooks.NotFoundException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,10 +22,35 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/events")
 public class EventsController {
+	static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	static final String NDJSON = "application/x-ndjson";
+	private static final int DEFAULT_LIMIT = 100;
+	private static final int MAX_LIMIT = 1000;
+
 	private final WebhookEventRepository webhookEventRepository;
+	private final WebhookEventExporter webhookEventExporter;
+	private final EventStatsService eventStatsService;
+	private final ObjectWriter ndjsonWriter;
 
-	public EventsController(WebhookEventRepository webhookEventRepository) {
+	public EventsController(
+			WebhookEventRepository webhookEventRepository,
+			WebhookEventExporter webhookEventExporter,
+			EventStatsService eventStatsService,
+			ObjectMapper objectMapper
+	) {
 		this.webhookEventRepository = webhookEventRepository;
+		this.webhookEventExporter = webhookEventExporter;
+		this.eventStatsService = eventStatsService;
+		this.ndjsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	/**
+	 * Event counts per state and source, retry histograms and the oldest pending age, served from
+	 * incrementally maintained counters; cheap enough to poll every second.
+	 */
+	@GetMapping("/stats")
+	public EventStats stats() {
+		return eventStatsService.snapshot();
 	}
 
 	@GetMapping("/{eventId}")
@@ -33,31 +67,72 @@ public class EventsController {
 		return WebhookEventDto.from(event);
 	}
 
+	/**
+	 * Returns one page of events in {@code (createdAt, id)} order. When more events match, the
+	 * {@code X-Next-Cursor} header carries the cursor for the next page.
+	 */
 	@GetMapping
-	public List<WebhookEventDto> query(
+	public ResponseEntity<List<WebhookEventDto>> query(
 			@RequestParam(value = "state", required = false) String state,
-			@RequestParam(value = "source", required = false) String source
+			@RequestParam(value = "source", required = false) String source,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor
 	) {
-		List<WebhookEvent> events;
-		if (state != null && !state.isBlank()) {
-			WebhookEventState parsed;
-			try {
-				parsed = WebhookEventState.valueOf(state);
-			} catch (IllegalArgumentException e) {
-				throw new BadRequestException("Invalid state");
-			}
-
-			if (source != null && !source.isBlank()) {
-				events = webhookEventRepository.findByStateAndSource(parsed, source);
-			} else {
-				events = webhookEventRepository.findByState(parsed);
-			}
-		} else if (source != null && !source.isBlank()) {
-			events = webhookEventRepository.findBySource(source);
-		} else {
-			events = webhookEventRepository.findAll();
+		int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+		if (pageSize < 1 || pageSize > MAX_LIMIT) {
+			throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+		}
+		EventCursor after = EventCursor.decode(cursor);
+
+		List<WebhookEventDto> events = webhookEventRepository.findPage(
+				parseState(state), blankToNull(source), after.createdAt(), after.id(), Limit.of(pageSize + 1));
+		if (events.size() <= pageSize) {
+			return ResponseEntity.ok(events);
 		}
 
-		return events.stream().map(WebhookEventDto::from).toList();
+		List<WebhookEventDto> page = events.subList(0, pageSize);
+		return ResponseEntity.ok()
+				.header(NEXT_CURSOR_HEADER, EventCursor.after(page.get(pageSize - 1)).encode())
+				.body(page);
+	}
+
+	/**
+	 * Streams every matching event as newline-delimited JSON. Rows are read in keyset pages and written
+	 * as each page arrives, so memory use does not depend on how many events match.
+	 */
+	@GetMapping("/export")
+	public void export(
+			@RequestParam(value = "state", required = false) String state,
+			@RequestParam(value = "source", required = false) String source,
+			HttpServletResponse response
+	) throws IOException {
+		WebhookEventState parsedState = parseState(state);
+		response.setContentType(NDJSON);
+
+		try (JsonGenerator generator = ndjsonWriter.createGenerator(response.getOutputStream())) {
+			webhookEventExporter.export(parsedState, blankToNull(source), event -> {
+				try {
+					ndjsonWriter.writeValue(generator, event);
+					generator.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+
+	private static WebhookEventState parseState(String state) {
+		if (state == null || state.isBlank()) {
+			return null;
+		}
+		try {
+			return WebhookEventState.valueOf(state);
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid state");
+		}
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.isBlank() ? null : value;
 	}
 }
@@ -0,0 +1,7 @@
+package com.ansh.EventRelay.events;
+
+public interface PendingAge {
+	String getSource();
+
+	double getAgeSeconds();
+}
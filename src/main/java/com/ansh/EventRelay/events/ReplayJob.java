@@ -0,0 +1,105 @@
+package com.ansh.EventRelay.events;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bulk replay submitted through {@code POST /admin/events/replay} and its progress so far.
+ */
+public class ReplayJob {
+	public enum Status {
+		QUEUED, RUNNING, COMPLETED, FAILED
+	}
+
+	private final UUID id = UUID.randomUUID();
+	private final List<WebhookEventState> states;
+	private final String source;
+	private final Instant from;
+	private final Instant to;
+	private final String failureReason;
+	private final Instant submittedAt = Instant.now();
+	private final AtomicLong replayed = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+	private volatile Status status = Status.QUEUED;
+	private volatile Instant finishedAt;
+	private volatile String error;
+
+	ReplayJob(List<WebhookEventState> states, String source, Instant from, Instant to, String failureReason) {
+		this.states = List.copyOf(states);
+		this.source = source;
+		this.from = from;
+		this.to = to;
+		this.failureReason = failureReason;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public List<WebhookEventState> getStates() {
+		return states;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public Instant getFrom() {
+		return from;
+	}
+
+	public Instant getTo() {
+		return to;
+	}
+
+	public String getFailureReason() {
+		return failureReason;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public long getReplayed() {
+		return replayed.get();
+	}
+
+	/**
+	 * Matching events that were locked, e.g. by a worker retrying them, when the replay reached them.
+	 */
+	public long getSkipped() {
+		return skipped.get();
+	}
+
+	public Instant getSubmittedAt() {
+		return submittedAt;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	void started() {
+		status = Status.RUNNING;
+	}
+
+	void addReplayed(int count) {
+		replayed.addAndGet(count);
+	}
+
+	void addSkipped(int count) {
+		skipped.addAndGet(count);
+	}
+
+	void finished(String error) {
+		this.error = error;
+		this.finishedAt = Instant.now();
+		this.status = error == null ? Status.COMPLETED : Status.FAILED;
+	}
+}
@@ -0,0 +1,15 @@
+package com.ansh.EventRelay.events;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface ReplayedEvent {
+	UUID getId();
+
+	Instant getCreatedAt();
+
+	/**
+	 * False when the row was locked and skipped.
+	 */
+	boolean getReplayed();
+}
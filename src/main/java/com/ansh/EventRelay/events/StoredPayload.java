@@ -0,0 +1,9 @@
+package com.ansh.EventRelay.events;
+
+import java.util.UUID;
+
+public interface StoredPayload {
+	UUID getEventId();
+
+	String getPayload();
+}
@@ -8,22 +8,12 @@ import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
-import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Transient;
 import java.time.Instant;
 import java.util.UUID;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
 
 @Entity
-@Table(
-		name = "webhook_events",
-		uniqueConstraints = {
-				@UniqueConstraint(
-						name = "uk_webhook_events_source_external_event_id",
-						columnNames = {"source", "external_event_id"}
-				)
-		}
-)
+@Table(name = "webhook_events")
 public class WebhookEvent {
 	@Id
 	@Column(name = "id", nullable = false, updatable = false)
@@ -35,8 +25,17 @@ public class WebhookEvent {
 	@Column(name = "external_event_id", nullable = false)
 	private String externalEventId;
 
-	@JdbcTypeCode(SqlTypes.JSON)
-	@Column(name = "payload", nullable = false, columnDefinition = "jsonb")
+	/**
+	 * Events of the same source with the same key are handled one at a time in the order they were
+	 * stored; {@code null} means the event is not ordered against any other.
+	 */
+	@Column(name = "ordering_key", insertable = false, updatable = false)
+	private String orderingKey;
+
+	/**
+	 * Stored in {@code webhook_event_payloads} and only attached when the event is about to be handled.
+	 */
+	@Transient
 	private String payload;
 
 	@Enumerated(EnumType.STRING)
@@ -52,6 +51,12 @@ public class WebhookEvent {
 	@Column(name = "failure_reason")
 	private String failureReason;
 
+	@Column(name = "lease_owner")
+	private String leaseOwner;
+
+	@Column(name = "lease_until")
+	private Instant leaseUntil;
+
 	@Column(name = "created_at", nullable = false, updatable = false)
 	private Instant createdAt;
 
@@ -103,10 +108,18 @@ public class WebhookEvent {
 		return externalEventId;
 	}
 
+	public String getOrderingKey() {
+		return orderingKey;
+	}
+
 	public String getPayload() {
 		return payload;
 	}
 
+	public void attachPayload(String payload) {
+		this.payload = payload;
+	}
+
 	public WebhookEventState getState() {
 		return state;
 	}
@@ -123,6 +136,14 @@ public class WebhookEvent {
 		return failureReason;
 	}
 
+	public String getLeaseOwner() {
+		return leaseOwner;
+	}
+
+	public Instant getLeaseUntil() {
+		return leaseUntil;
+	}
+
 	public Instant getCreatedAt() {
 		return createdAt;
 	}
@@ -131,15 +152,12 @@ public class WebhookEvent {
 		return updatedAt;
 	}
 
-	public void markProcessing(Instant now) {
-		this.state = WebhookEventState.PROCESSING;
-		this.updatedAt = now;
-	}
-
 	public void markSuccess(Instant now) {
 		this.state = WebhookEventState.SUCCESS;
 		this.failureReason = null;
 		this.nextRetryAt = null;
+		this.leaseOwner = null;
+		this.leaseUntil = null;
 		this.updatedAt = now;
 	}
 
@@ -148,6 +166,8 @@ public class WebhookEvent {
 		this.failureReason = failureReason;
 		this.retryCount = retryCount;
 		this.nextRetryAt = nextRetryAt;
+		this.leaseOwner = null;
+		this.leaseUntil = null;
 		this.updatedAt = now;
 	}
 
@@ -156,6 +176,20 @@ public class WebhookEvent {
 		this.failureReason = failureReason;
 		this.retryCount = retryCount;
 		this.nextRetryAt = null;
+		this.leaseOwner = null;
+		this.leaseUntil = null;
+		this.updatedAt = now;
+	}
+
+	/**
+	 * Puts a claimed event back without counting an attempt: it returns to {@code RECEIVED}, or to
+	 * {@code FAILED} if it has failed before, and becomes eligible again at {@code until}.
+	 */
+	public void markParked(Instant until, Instant now) {
+		this.state = retryCount == 0 ? WebhookEventState.RECEIVED : WebhookEventState.FAILED;
+		this.nextRetryAt = until;
+		this.leaseOwner = null;
+		this.leaseUntil = null;
 		this.updatedAt = now;
 	}
 }
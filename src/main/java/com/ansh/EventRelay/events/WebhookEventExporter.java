@@ -0,0 +1,47 @@
+package com.ansh.EventRelay.events;
+
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+@Service
+public class WebhookEventExporter {
+	private final WebhookEventRepository webhookEventRepository;
+	private final int pageSize;
+
+	public WebhookEventExporter(
+			WebhookEventRepository webhookEventRepository,
+			@Value("${eventrelay.events.exportPageSize:500}") int pageSize
+	) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("eventrelay.events.exportPageSize must be at least 1");
+		}
+		this.webhookEventRepository = webhookEventRepository;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Hands every matching event to {@code sink}, reading them in keyset pages of {@code pageSize}.
+	 * Each page is one short query, so a connection is only held while a page is read, never while
+	 * {@code sink} writes to a slow client. Events that change state mid-export may be missed or
+	 * seen once more in their new state, as with paging through {@code GET /events}.
+	 */
+	public long export(WebhookEventState state, String source, Consumer<WebhookEventDto> sink) {
+		long count = 0;
+		EventCursor cursor = EventCursor.START;
+		List<WebhookEventDto> page;
+		do {
+			page = webhookEventRepository.findPage(state, source, cursor.createdAt(), cursor.id(), Limit.of(pageSize));
+			for (WebhookEventDto event : page) {
+				sink.accept(event);
+				count++;
+			}
+			if (!page.isEmpty()) {
+				cursor = EventCursor.after(page.getLast());
+			}
+		} while (page.size() == pageSize);
+		return count;
+	}
+}
@@ -1,32 +1,655 @@
 package com.ansh.EventRelay.events;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface WebhookEventRepository extends JpaRepository<WebhookEvent, UUID> {
 	Optional<WebhookEvent> findBySourceAndExternalEventId(String source, String externalEventId);
 
-	List<WebhookEvent> findByState(WebhookEventState state);
+	/**
+	 * Returns the events after {@code (afterCreatedAt, afterId)} in {@code (created_at, id)} order,
+	 * optionally narrowed to one state and/or source. Each filter combination has its own query, so
+	 * the planner sees plain predicates and picks the matching {@code *_created_at_id} index instead
+	 * of one generic plan for {@code (:state is null or ...)}.
+	 */
+	default List<WebhookEventDto> findPage(
+			WebhookEventState state,
+			String source,
+			Instant afterCreatedAt,
+			UUID afterId,
+			Limit limit
+	) {
+		if (state != null && source != null) {
+			return findPageByStateAndSource(state, source, afterCreatedAt, afterId, limit);
+		}
+		if (state != null) {
+			return findPageByState(state, afterCreatedAt, afterId, limit);
+		}
+		if (source != null) {
+			return findPageBySource(source, afterCreatedAt, afterId, limit);
+		}
+		return findPageOfAll(afterCreatedAt, afterId, limit);
+	}
 
-	List<WebhookEvent> findBySource(String source);
+	@Query("""
+			select new com.ansh.EventRelay.events.WebhookEventDto(
+			    e.id, e.source, e.externalEventId, e.state, e.retryCount, e.nextRetryAt,
+			    e.failureReason, e.createdAt, e.updatedAt)
+			from WebhookEvent e
+			where e.state = :state
+			  and e.source = :source
+			  and (e.createdAt, e.id) > (:afterCreatedAt, :afterId)
+			order by e.createdAt, e.id
+			""")
+	List<WebhookEventDto> findPageByStateAndSource(
+			@Param("state") WebhookEventState state,
+			@Param("source") String source,
+			@Param("afterCreatedAt") Instant afterCreatedAt,
+			@Param("afterId") UUID afterId,
+			Limit limit
+	);
 
-	List<WebhookEvent> findByStateAndSource(WebhookEventState state, String source);
+	@Query("""
+			select new com.ansh.EventRelay.events.WebhookEventDto(
+			    e.id, e.source, e.externalEventId, e.state, e.retryCount, e.nextRetryAt,
+			    e.failureReason, e.createdAt, e.updatedAt)
+			from WebhookEvent e
+			where e.state = :state
+			  and (e.createdAt, e.id) > (:afterCreatedAt, :afterId)
+			order by e.createdAt, e.id
+			""")
+	List<WebhookEventDto> findPageByState(
+			@Param("state") WebhookEventState state,
+			@Param("afterCreatedAt") Instant afterCreatedAt,
+			@Param("afterId") UUID afterId,
+			Limit limit
+	);
+
+	@Query("""
+			select new com.ansh.EventRelay.events.WebhookEventDto(
+			    e.id, e.source, e.externalEventId, e.state, e.retryCount, e.nextRetryAt,
+			    e.failureReason, e.createdAt, e.updatedAt)
+			from WebhookEvent e
+			where e.source = :source
+			  and (e.createdAt, e.id) > (:afterCreatedAt, :afterId)
+			order by e.createdAt, e.id
+			""")
+	List<WebhookEventDto> findPageBySource(
+			@Param("source") String source,
+			@Param("afterCreatedAt") Instant afterCreatedAt,
+			@Param("afterId") UUID afterId,
+			Limit limit
+	);
+
+	@Query("""
+			select new com.ansh.EventRelay.events.WebhookEventDto(
+			    e.id, e.source, e.externalEventId, e.state, e.retryCount, e.nextRetryAt,
+			    e.failureReason, e.createdAt, e.updatedAt)
+			from WebhookEvent e
+			where (e.createdAt, e.id) > (:afterCreatedAt, :afterId)
+			order by e.createdAt, e.id
+			""")
+	List<WebhookEventDto> findPageOfAll(
+			@Param("afterCreatedAt") Instant afterCreatedAt,
+			@Param("afterId") UUID afterId,
+			Limit limit
+	);
+
+	/**
+	 * Current number of events per state, source and retry count, from the totals maintained by the
+	 * {@code webhook_events} count triggers plus the deltas that are not rolled up yet. Never scans
+	 * {@code webhook_events}; see {@code V9__add_event_state_counters.sql}.
+	 */
+	@Query(
+			value = """
+				select c.state as state,
+				       c.source as source,
+				       c.retry_count as retryCount,
+				       cast(sum(c.events) as bigint) as events
+				from (
+				    select state, source, retry_count, events from webhook_event_counts
+				    union all
+				    select state, source, retry_count, delta from webhook_event_count_deltas
+				) c
+				group by c.state, c.source, c.retry_count
+				having sum(c.events) <> 0
+				""",
+			nativeQuery = true
+	)
+	List<EventCount> countEvents();
+
+	/**
+	 * For each of {@code sources}, how long its longest-waiting due event has been eligible, or 0 when
+	 * nothing is due. One probe of {@code idx_webhook_events_pending_source_eligible_at} per source;
+	 * sources without pending events are left out.
+	 */
+	@Query(
+			value = """
+				select s.source as source,
+				       greatest(0, cast(extract(epoch from now() - o.eligible_at) as double precision)) as ageSeconds
+				from unnest(cast(:sources as varchar[])) as s(source)
+				cross join lateral (
+				    select coalesce(w.next_retry_at, w.created_at) as eligible_at
+				    from webhook_events w
+				    where w.source = s.source
+				      and w.state in ('RECEIVED', 'FAILED')
+				    order by coalesce(w.next_retry_at, w.created_at)
+				    limit 1
+				) o
+				""",
+			nativeQuery = true
+	)
+	List<PendingAge> findOldestPendingAges(@Param("sources") String[] sources);
+
+	/**
+	 * Folds the pending count deltas into {@code webhook_event_counts}. Returns the number of totals
+	 * that changed.
+	 */
+	@Transactional
+	@Query(value = "select webhook_event_counts_rollup()", nativeQuery = true)
+	int rollupEventCounts();
+
+	/**
+	 * Wakes listening workers once the surrounding transaction commits. Postgres folds repeated
+	 * notifications on the same channel within one transaction into a single delivery.
+	 */
+	@Modifying
+	@Query(value = "notify webhook_events_ready", nativeQuery = true)
+	void notifyEventsReady();
+
+	/**
+	 * Claims up to {@code limit} eligible events, oldest eligibility first, and commits them as
+	 * {@code PROCESSING} under a lease owned by {@code leaseOwner}. The candidate scan matches
+	 * {@code idx_webhook_events_pending_eligible_at} exactly and stops at {@code now()}. The lease is
+	 * committed before any handler runs, so no connection or row lock is held while events are being
+	 * handled. Rows come back in no particular order.
+	 *
+	 * <p>An event with an ordering key is only claimable while no earlier event with the same source
+	 * and key is still unsettled ({@code RECEIVED}, {@code FAILED} or {@code PROCESSING}), which is
+	 * checked against {@code idx_webhook_events_unsettled_ordering_key}. A key therefore never has two
+	 * events in flight, and a failing event holds back the ones after it until it succeeds or is
+	 * dead-lettered. Events of {@code pausedSources} are not claimed.
+	 */
+	@Transactional
+	@Query(
+			value = """
+				update webhook_events
+				set state = 'PROCESSING',
+				    lease_owner = :leaseOwner,
+				    lease_until = now() + make_interval(secs => :leaseSeconds),
+				    updated_at = now()
+				where (id, created_at) in (
+				    select w.id, w.created_at
+				    from webhook_events w
+				    where w.state in ('RECEIVED', 'FAILED')
+				      and coalesce(w.next_retry_at, w.created_at) <= now()
+				      and w.source <> all(cast(:pausedSources as varchar[]))
+				      and (w.ordering_key is null or not exists (
+				          select 1
+				          from webhook_events o
+				          where o.source = w.source
+				            and o.ordering_key = w.ordering_key
+				            and o.state in ('RECEIVED', 'FAILED', 'PROCESSING')
+				            and o.ordering_seq < w.ordering_seq))
+				    order by coalesce(w.next_retry_at, w.created_at), w.id
+				    limit :limit
+				    for update skip locked
+				)
+				returning *
+				""",
+			nativeQuery = true
+	)
+	List<WebhookEvent> claimNextEligibleEvents(
+			@Param("limit") int limit,
+			@Param("leaseOwner") String leaseOwner,
+			@Param("leaseSeconds") long leaseSeconds,
+			@Param("pausedSources") String[] pausedSources
+	);
+
+	/**
+	 * Claims like {@link #claimNextEligibleEvents} but shares the batch between sources: the sources
+	 * with claimable events are found with a loose scan of
+	 * {@code idx_webhook_events_pending_source_eligible_at}, each contributes at most its quota of
+	 * oldest eligible events, and the batch is filled by weighted turns ({@code turn / weight}) so one
+	 * source's backlog cannot starve the others. Ties between sources rotate past {@code cursor}.
+	 *
+	 * <p>A source's quota is the smallest of {@code limit}, its {@code allowances} entry and its
+	 * {@code maxInFlight} entry minus its events already in {@code PROCESSING}; sources not listed use
+	 * the {@code default*} values. A {@code maxInFlight} of 0 means unlimited. Ordering keys are
+	 * respected as in {@link #claimNextEligibleEvents}.
+	 *
+	 * <p>Candidates are locked before the batch is filled, so only the {@code limit} sources whose first
+	 * turn comes earliest offer any, each at most twice its weighted share of {@code limit}. One claim
+	 * locks between {@code 2 * limit} and {@code 3 * limit} rows however many sources are pending; a
+	 * source with fewer events than its share leaves the others that much slack to fill the batch.
+	 */
+	@Transactional
+	@Query(
+			value = """
+				with recursive pending_sources(source) as (
+				    (select source
+				     from webhook_events
+				     where state in ('RECEIVED', 'FAILED')
+				     order by source
+				     limit 1)
+				    union all
+				    select (select w.source
+				            from webhook_events w
+				            where w.state in ('RECEIVED', 'FAILED')
+				              and w.source > p.source
+				            order by w.source
+				            limit 1)
+				    from pending_sources p
+				    where p.source is not null
+				),
+				limits as (
+				    select *
+				    from unnest(
+				        cast(:sources as varchar[]),
+				        cast(:allowances as int[]),
+				        cast(:maxInFlight as int[]),
+				        cast(:weights as int[])
+				    ) as l(source, allowance, max_in_flight, weight)
+				),
+				quotas as (
+				    select p.source,
+				           coalesce(l.weight, :defaultWeight) as weight,
+				           greatest(0, least(
+				               :limit,
+				               coalesce(l.allowance, :defaultAllowance),
+				               case when coalesce(l.max_in_flight, :defaultMaxInFlight) > 0
+				                    then coalesce(l.max_in_flight, :defaultMaxInFlight) - (
+				                        select count(*)
+				                        from webhook_events f
+				                        where f.state = 'PROCESSING'
+				                          and f.source = p.source)
+				               end
+				           )) as quota
+				    from pending_sources p
+				    left join limits l on l.source = p.source
+				    where p.source is not null
+				),
+				ready as (
+				    select q.*,
+				           row_number() over (order by cast(1 as float8) / q.weight, q.source <= :cursor, q.source) as first_turn
+				    from quotas q
+				    where q.quota > 0
+				      and exists (
+				          select 1
+				          from webhook_events w
+				          where w.source = q.source
+				            and w.state in ('RECEIVED', 'FAILED')
+				            and coalesce(w.next_retry_at, w.created_at) <= now())
+				),
+				shares as (
+				    select r.source, r.weight,
+				           least(r.quota, cast(ceil(2 * cast(:limit as float8) * r.weight / sum(r.weight) over ()) as int)) as share
+				    from ready r
+				    where r.first_turn <= :limit
+				),
+				candidates as (
+				    select c.id, c.created_at, c.eligible_at, q.source, q.weight,
+				           row_number() over (partition by q.source order by c.eligible_at, c.id) as turn
+				    from shares q
+				    cross join lateral (
+				        select w.id, w.created_at, coalesce(w.next_retry_at, w.created_at) as eligible_at
+				        from webhook_events w
+				        where w.source = q.source
+				          and w.state in ('RECEIVED', 'FAILED')
+				          and coalesce(w.next_retry_at, w.created_at) <= now()
+				          and (w.ordering_key is null or not exists (
+				              select 1
+				              from webhook_events o
+				              where o.source = w.source
+				                and o.ordering_key = w.ordering_key
+				                and o.state in ('RECEIVED', 'FAILED', 'PROCESSING')
+				                and o.ordering_seq < w.ordering_seq))
+				        order by coalesce(w.next_retry_at, w.created_at), w.id
+				        limit q.share
+				        for update skip locked
+				    ) c
+				),
+				picked as (
+				    select id, created_at
+				    from candidates
+				    order by cast(turn as float8) / weight, source <= :cursor, source, eligible_at, id
+				    limit :limit
+				)
+				update webhook_events e
+				set state = 'PROCESSING',
+				    lease_owner = :leaseOwner,
+				    lease_until = now() + make_interval(secs => :leaseSeconds),
+				    updated_at = now()
+				from picked
+				where e.id = picked.id
+				  and e.created_at = picked.created_at
+				returning e.*
+				""",
+			nativeQuery = true
+	)
+	List<WebhookEvent> claimNextEligibleEventsFairly(
+			@Param("limit") int limit,
+			@Param("leaseOwner") String leaseOwner,
+			@Param("leaseSeconds") long leaseSeconds,
+			@Param("cursor") String cursor,
+			@Param("sources") String[] sources,
+			@Param("allowances") Integer[] allowances,
+			@Param("maxInFlight") Integer[] maxInFlight,
+			@Param("weights") Integer[] weights,
+			@Param("defaultAllowance") int defaultAllowance,
+			@Param("defaultMaxInFlight") int defaultMaxInFlight,
+			@Param("defaultWeight") int defaultWeight
+	);
+
+	/**
+	 * Writes the outcome of a leased batch back in one statement. Only rows still leased by
+	 * {@code leaseOwner} are updated, so a batch whose lease expired and was reclaimed elsewhere
+	 * cannot overwrite the newer attempt. Returns the number of rows that were still held.
+	 */
+	@Transactional
+	@Modifying
+	@Query(
+			value = """
+				update webhook_events e
+				set state = u.state,
+				    retry_count = u.retry_count,
+				    next_retry_at = u.next_retry_at,
+				    failure_reason = u.failure_reason,
+				    lease_owner = null,
+				    lease_until = null,
+				    updated_at = now()
+				from unnest(
+				    cast(:ids as uuid[]),
+				    cast(:createdAts as timestamptz[]),
+				    cast(:states as varchar[]),
+				    cast(:retryCounts as int[]),
+				    cast(:nextRetryAts as timestamptz[]),
+				    cast(:failureReasons as text[])
+				) as u(id, created_at, state, retry_count, next_retry_at, failure_reason)
+				where e.id = u.id
+				  and e.created_at = u.created_at
+				  and e.state = 'PROCESSING'
+				  and e.lease_owner = :leaseOwner
+				""",
+			nativeQuery = true
+	)
+	int completeLeasedEvents(
+			@Param("leaseOwner") String leaseOwner,
+			@Param("ids") UUID[] ids,
+			@Param("createdAts") Instant[] createdAts,
+			@Param("states") String[] states,
+			@Param("retryCounts") Integer[] retryCounts,
+			@Param("nextRetryAts") Instant[] nextRetryAts,
+			@Param("failureReasons") String[] failureReasons
+	);
 
 	@Query(
 			value = """
-				select *
+				select distinct source
 				from webhook_events
-				where state in ('RECEIVED', 'FAILED')
-				  and (next_retry_at is null or next_retry_at <= now())
-				order by created_at asc
-				limit :limit
-				for update skip locked
+				where state = 'PROCESSING'
+				  and lease_until < now()
+				""",
+			nativeQuery = true
+	)
+	List<String> findSourcesWithExpiredLeases();
+
+	/**
+	 * Requeues up to {@code limit} events of {@code sources} whose lease ran out, e.g. because the
+	 * worker holding them crashed. The lost attempt counts as a failure so that an event which keeps
+	 * killing its worker still ends up in {@code DEAD_LETTER} once it exceeds its source's
+	 * {@code maxRetries} entry.
+	 */
+	@Transactional
+	@Modifying
+	@Query(
+			value = """
+				with limits as (
+				    select *
+				    from unnest(cast(:sources as varchar[]), cast(:maxRetries as int[])) as l(source, max_retries)
+				),
+				expired as (
+				    select w.id, w.created_at, l.max_retries
+				    from webhook_events w
+				    join limits l on l.source = w.source
+				    where w.state = 'PROCESSING'
+				      and w.lease_until < now()
+				    limit :limit
+				    for update of w skip locked
+				)
+				update webhook_events e
+				set state = case when e.retry_count + 1 > x.max_retries then 'DEAD_LETTER' else 'FAILED' end,
+				    retry_count = e.retry_count + 1,
+				    next_retry_at = case when e.retry_count + 1 > x.max_retries then null else now() end,
+				    failure_reason = 'LeaseExpired',
+				    lease_owner = null,
+				    lease_until = null,
+				    updated_at = now()
+				from expired x
+				where e.id = x.id
+				  and e.created_at = x.created_at
+				""",
+			nativeQuery = true
+	)
+	int requeueExpiredLeases(
+			@Param("sources") String[] sources,
+			@Param("maxRetries") Integer[] maxRetries,
+			@Param("limit") int limit
+	);
+
+	/**
+	 * Resets up to {@code limit} events in {@code state} after {@code (afterCreatedAt, afterId)} to
+	 * {@code RECEIVED} with a fresh retry budget, walking {@code idx_webhook_events_state_created_at_id}
+	 * in {@code (created_at, id)} order so that each call picks up where the previous one stopped.
+	 * {@code source}, the {@code [fromCreatedAt, toCreatedAt)} range and {@code failureReason} narrow
+	 * the match when set; the range also prunes partitions. The next {@code limit} matching rows are
+	 * scanned without locks, and of those only the ones that are not locked, e.g. by a claim, are
+	 * locked and reset; the rest are skipped rather than waited for. Replayed events become eligible
+	 * at {@code now()}, behind the events that are already waiting. Returns every scanned row in
+	 * {@code (created_at, id)} order with whether it was replayed, so the last one is the cursor for
+	 * the next call and fewer than {@code limit} rows means the walk is done.
+	 */
+	@Transactional
+	@Query(
+			value = """
+				with scanned as (
+				    select w.id, w.created_at
+				    from webhook_events w
+				    where w.state = :state
+				      and (w.created_at, w.id) > (cast(:afterCreatedAt as timestamptz), cast(:afterId as uuid))
+				      and w.created_at >= coalesce(cast(:fromCreatedAt as timestamptz), '-infinity')
+				      and w.created_at < coalesce(cast(:toCreatedAt as timestamptz), 'infinity')
+				      and (cast(:source as varchar) is null or w.source = cast(:source as varchar))
+				      and (cast(:failureReason as text) is null or w.failure_reason = cast(:failureReason as text))
+				    order by w.created_at, w.id
+				    limit :limit
+				),
+				candidates as (
+				    select w.id, w.created_at
+				    from webhook_events w
+				    join scanned s on s.id = w.id and s.created_at = w.created_at
+				    where w.state = :state
+				    for update of w skip locked
+				),
+				replayed as (
+				    update webhook_events e
+				    set state = 'RECEIVED',
+				        retry_count = 0,
+				        next_retry_at = now(),
+				        failure_reason = null,
+				        lease_owner = null,
+				        lease_until = null,
+				        updated_at = now()
+				    from candidates c
+				    where e.id = c.id
+				      and e.created_at = c.created_at
+				    returning e.id, e.created_at
+				)
+				select s.id as id, s.created_at as createdAt, r.id is not null as replayed
+				from scanned s
+				left join replayed r on r.id = s.id and r.created_at = s.created_at
+				order by s.created_at, s.id
 				""",
 			nativeQuery = true
 	)
-	List<WebhookEvent> claimNextEligibleEvents(@Param("limit") int limit);
+	List<ReplayedEvent> replayEvents(
+			@Param("state") String state,
+			@Param("source") String source,
+			@Param("fromCreatedAt") Instant fromCreatedAt,
+			@Param("toCreatedAt") Instant toCreatedAt,
+			@Param("failureReason") String failureReason,
+			@Param("afterCreatedAt") Instant afterCreatedAt,
+			@Param("afterId") UUID afterId,
+			@Param("limit") int limit
+	);
+
+	/**
+	 * The statement behind {@link #insertEventBatch}. {@code ReactiveWebhookIngestionWriter} runs the
+	 * same statement over R2DBC.
+	 */
+	String INSERT_EVENT_BATCH = """
+			with input as (
+			    select distinct on (source, external_event_id)
+			        id, source, external_event_id, payload, ordering_key, ordering_path, ord
+			    from unnest(
+			        cast(:ids as uuid[]),
+			        cast(:sources as varchar[]),
+			        cast(:externalEventIds as varchar[]),
+			        cast(:payloads as bytea[]),
+			        cast(:orderingKeys as text[]),
+			        cast(:orderingPaths as text[])
+			    ) with ordinality as u(id, source, external_event_id, payload, ordering_key, ordering_path, ord)
+			    order by source, external_event_id, ord
+			),
+			keys as (
+			    insert into webhook_event_dedup_keys (source, external_event_id, created_at)
+			    select source, external_event_id, now()
+			    from input
+			    on conflict (source, external_event_id) do nothing
+			    returning source, external_event_id
+			),
+			keyed as (
+			    select i.id, i.source, i.external_event_id, i.ord,
+			           coalesce(i.ordering_key, case when i.ordering_path is not null
+			               then cast(convert_from(i.payload, 'UTF8') as jsonb) #>> string_to_array(i.ordering_path, chr(31))
+			           end) as ordering_key
+			    from input i
+			    join keys k on k.source = i.source and k.external_event_id = i.external_event_id
+			),
+			ordering_locks as (
+			    select count(*) as locked
+			    from (
+			        select pg_advisory_xact_lock(l.source_hash, l.key_hash)
+			        from (
+			            select distinct hashtext(source) as source_hash, hashtext(ordering_key) as key_hash
+			            from keyed
+			            where ordering_key is not null
+			        ) l
+			        order by l.source_hash, l.key_hash
+			    ) taken
+			),
+			events as (
+			    insert into webhook_events (
+			        id, source, external_event_id, ordering_key, ordering_seq, state, retry_count, created_at, updated_at)
+			    select k.id, k.source, k.external_event_id, k.ordering_key,
+			           case when k.ordering_key is not null then nextval('webhook_events_ordering_seq') end,
+			           'RECEIVED', 0, now(), now()
+			    from keyed k
+			    cross join ordering_locks
+			    order by k.ord
+			    returning id, created_at
+			),
+			payloads as (
+			    insert into webhook_event_payloads (event_id, created_at, payload)
+			    select e.id, e.created_at, cast(convert_from(i.payload, 'UTF8') as jsonb)
+			    from events e
+			    join input i on i.id = e.id
+			    returning event_id
+			)
+			select event_id from payloads
+			""";
+
+	/**
+	 * Ingests a whole batch in one statement: reserves the dedup keys with
+	 * {@code ON CONFLICT (source, external_event_id) DO NOTHING} and inserts events and payloads only
+	 * for the keys it actually reserved, so a duplicate never raises an error or aborts the
+	 * transaction. Repeated keys inside the batch collapse onto their first occurrence. Returns the ids
+	 * of the events that were inserted; every other id in {@code ids} was a duplicate. Payloads are
+	 * sent as raw UTF-8 bytes and only decoded into {@code jsonb} by Postgres.
+	 *
+	 * <p>An event's ordering key is its {@code orderingKeys} entry if set, otherwise the value at its
+	 * {@code orderingPaths} entry (JSON path segments joined by {@code U+001F}) if that is set. Keyed
+	 * events draw {@code ordering_seq} in request order.
+	 *
+	 * <p>Sequence values are drawn before commit, so on their own a later value could become visible
+	 * while an earlier one of the same key is still uncommitted, and be claimed ahead of it. The
+	 * statement therefore takes a transaction-scoped advisory lock per {@code (source, ordering_key)},
+	 * in a fixed order so that concurrent batches cannot deadlock, before it draws any value. A key's
+	 * next value is only drawn once the transaction holding its previous one has ended.
+	 */
+	@Query(value = INSERT_EVENT_BATCH, nativeQuery = true)
+	List<UUID> insertEventBatch(
+			@Param("ids") UUID[] ids,
+			@Param("sources") String[] sources,
+			@Param("externalEventIds") String[] externalEventIds,
+			@Param("payloads") byte[][] payloads,
+			@Param("orderingKeys") String[] orderingKeys,
+			@Param("orderingPaths") String[] orderingPaths
+	);
+
+	/**
+	 * Loads the payloads of a claimed batch in one round trip. Matching on {@code created_at} as well
+	 * lets Postgres prune to the partitions the batch lives in.
+	 */
+	@Query(
+			value = """
+				select p.event_id as eventId, cast(p.payload as text) as payload
+				from webhook_event_payloads p
+				join unnest(cast(:ids as uuid[]), cast(:createdAts as timestamptz[])) as u(id, created_at)
+				  on p.event_id = u.id and p.created_at = u.created_at
+				""",
+			nativeQuery = true
+	)
+	List<StoredPayload> findPayloads(@Param("ids") UUID[] ids, @Param("createdAts") Instant[] createdAts);
+
+	@Transactional
+	@Modifying
+	@Query(
+			value = """
+				delete from webhook_event_dedup_keys
+				where (source, external_event_id) in (
+				    select source, external_event_id
+				    from webhook_event_dedup_keys
+				    where created_at < :cutoff
+				    limit :limit
+				)
+				""",
+			nativeQuery = true
+	)
+	int deleteDedupKeysCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+	/**
+	 * Creates the missing daily partitions from {@code fromDay} up to {@code daysAhead} days past
+	 * today (UTC). Returns the number of partitions created.
+	 */
+	@Transactional
+	@Query(value = "select webhook_events_ensure_partitions(:fromDay, :daysAhead)", nativeQuery = true)
+	int ensurePartitions(@Param("fromDay") LocalDate fromDay, @Param("daysAhead") int daysAhead);
+
+	/**
+	 * Drops, or detaches when {@code archive} is set, every daily partition that ends at or before
+	 * {@code olderThan} and no longer holds pending events. Returns the affected partition names.
+	 */
+	@Transactional
+	@Query(value = "select webhook_events_drop_partitions(:olderThan, :archive)", nativeQuery = true)
+	List<String> dropPartitionsOlderThan(@Param("olderThan") Instant olderThan, @Param("archive") boolean archive);
 }
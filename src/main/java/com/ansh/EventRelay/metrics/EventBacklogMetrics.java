@@ -0,0 +1,89 @@
+package com.ansh.EventRelay.metrics;
+
+import com.ansh.EventRelay.events.EventStats;
+import com.ansh.EventRelay.events.EventStatsService;
+import com.ansh.EventRelay.events.WebhookEventState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the queue depth per state and source and the oldest pending age per source as gauges.
+ * The numbers come from an {@link EventStatsService} snapshot every
+ * {@code eventrelay.metrics.backlogRefreshMs}, not from a query per scrape. A series that emptied out
+ * keeps reporting 0 instead of disappearing, so alerts on it resolve rather than go stale.
+ */
+@Component
+public class EventBacklogMetrics {
+	private static final Logger log = LoggerFactory.getLogger(EventBacklogMetrics.class);
+	private static final Set<WebhookEventState> BACKLOG_STATES = EnumSet.of(
+			WebhookEventState.RECEIVED, WebhookEventState.FAILED, WebhookEventState.PROCESSING, WebhookEventState.DEAD_LETTER);
+
+	private final EventStatsService statsService;
+	private final MultiGauge depth;
+	private final MultiGauge oldestPendingAge;
+	private final Map<Tags, double[]> depths = new HashMap<>();
+	private final Map<Tags, double[]> ages = new HashMap<>();
+
+	public EventBacklogMetrics(EventStatsService statsService, MeterRegistry registry) {
+		this.statsService = statsService;
+		this.depth = MultiGauge.builder("eventrelay.events.backlog")
+				.description("Events per state and source")
+				.register(registry);
+		this.oldestPendingAge = MultiGauge.builder("eventrelay.events.oldest.pending.age")
+				.description("How long the longest-waiting due event of the source has been eligible")
+				.baseUnit("seconds")
+				.register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${eventrelay.metrics.backlogRefreshMs:15000}")
+	public void tick() {
+		try {
+			refresh();
+		} catch (RuntimeException e) {
+			log.warn("Failed to refresh backlog metrics", e);
+		}
+	}
+
+	public void refresh() {
+		// Queried outside the monitor, which would otherwise pin a virtual scheduler thread across JDBC.
+		apply(statsService.snapshot());
+	}
+
+	private synchronized void apply(EventStats stats) {
+		depths.values().forEach(value -> value[0] = 0);
+		ages.values().forEach(value -> value[0] = 0);
+		for (EventStats.SourceStats source : stats.sources()) {
+			source.states().forEach((state, events) -> {
+				if (!BACKLOG_STATES.contains(state)) {
+					return;
+				}
+				Tags tags = Tags.of("state", state.name(), "source", source.source());
+				double[] value = events > 0 ? depths.computeIfAbsent(tags, key -> new double[1]) : depths.get(tags);
+				if (value != null) {
+					value[0] = events;
+				}
+			});
+			ages.computeIfAbsent(Tags.of("source", source.source()), tags -> new double[1])[0] = source.oldestPendingAgeSeconds();
+		}
+		// Rows read their values from the arrays above, so only newly seen rows get registered.
+		depth.register(rows(depths), false);
+		oldestPendingAge.register(rows(ages), false);
+	}
+
+	private static List<MultiGauge.Row<?>> rows(Map<Tags, double[]> values) {
+		List<MultiGauge.Row<?>> rows = new ArrayList<>(values.size());
+		values.forEach((tags, value) -> rows.add(MultiGauge.Row.of(tags, value, v -> v[0])));
+		return rows;
+	}
+}
@@ -0,0 +1,123 @@
+package com.ansh.EventRelay.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the event lifecycle, from ingest to the final state. Meters tagged with a source are
+ * created the first time the source is seen and then looked up by source alone, so recording on the
+ * hot path does not build a meter id per call. Latency timers publish histogram buckets, so
+ * percentiles can be aggregated across nodes in Prometheus.
+ *
+ * <p>Callers must only pass sources that are configured, or {@link #UNKNOWN_SOURCE}: the ingest path
+ * is reachable with any source name, and every distinct value is a new time series.
+ */
+@Component
+public class EventRelayMetrics {
+	public static final String UNKNOWN_SOURCE = "unknown";
+
+	public enum IngestOutcome {
+		ACCEPTED, DUPLICATE, REJECTED, UNAVAILABLE
+	}
+
+	public enum Transition {
+		SUCCESS, FAILED, DEAD_LETTER, PARKED
+	}
+
+	private final MeterRegistry registry;
+	private final Timer claimHit;
+	private final Timer claimEmpty;
+	private final Counter leasesExpired;
+	private final Map<String, SourceMeters> sources = new ConcurrentHashMap<>();
+
+	public EventRelayMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		this.claimHit = claimTimer("claimed");
+		this.claimEmpty = claimTimer("empty");
+		this.leasesExpired = Counter.builder("eventrelay.events.lease.expired")
+				.description("Events requeued because the lease of the worker holding them ran out")
+				.register(registry);
+	}
+
+	public void recordIngest(String source, IngestOutcome outcome, long nanos) {
+		meters(source).ingest[outcome.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordSignatureVerify(String source, long nanos) {
+		meters(source).signatureVerify.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordClaim(int claimed, long nanos) {
+		(claimed > 0 ? claimHit : claimEmpty).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordHandler(String source, boolean success, long nanos) {
+		SourceMeters meters = meters(source);
+		(success ? meters.handlerSuccess : meters.handlerFailure).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordTransition(String source, Transition transition) {
+		meters(source).transitions[transition.ordinal()].increment();
+	}
+
+	public void recordLeasesExpired(int count) {
+		leasesExpired.increment(count);
+	}
+
+	private SourceMeters meters(String source) {
+		SourceMeters meters = sources.get(source);
+		return meters != null ? meters : sources.computeIfAbsent(source, SourceMeters::new);
+	}
+
+	private Timer claimTimer(String result) {
+		return Timer.builder("eventrelay.claim")
+				.description("Latency of the claim query")
+				.tag("result", result)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	private final class SourceMeters {
+		private final Timer[] ingest = new Timer[IngestOutcome.values().length];
+		private final Timer signatureVerify;
+		private final Timer handlerSuccess;
+		private final Timer handlerFailure;
+		private final Counter[] transitions = new Counter[Transition.values().length];
+
+		private SourceMeters(String source) {
+			for (IngestOutcome outcome : IngestOutcome.values()) {
+				ingest[outcome.ordinal()] = Timer.builder("eventrelay.ingest")
+						.description("Latency of webhook ingest requests, from receipt to acknowledgement")
+						.tags("source", source, "outcome", outcome.name().toLowerCase())
+						.publishPercentileHistogram()
+						.register(registry);
+			}
+			signatureVerify = Timer.builder("eventrelay.signature.verify")
+					.description("Time spent verifying webhook signatures")
+					.tag("source", source)
+					.publishPercentileHistogram()
+					.register(registry);
+			handlerSuccess = handlerTimer(source, "success");
+			handlerFailure = handlerTimer(source, "failure");
+			for (Transition transition : Transition.values()) {
+				transitions[transition.ordinal()] = Counter.builder("eventrelay.events.transitions")
+						.description("Outcomes of handled events; FAILED counts scheduled retries")
+						.tags("source", source, "state", transition.name())
+						.register(registry);
+			}
+		}
+
+		private Timer handlerTimer(String source, String outcome) {
+			return Timer.builder("eventrelay.handler")
+					.description("Latency of the event handler")
+					.tags("source", source, "outcome", outcome)
+					.publishPercentileHistogram()
+					.register(registry);
+		}
+	}
+}
@@ -1,9 +1,9 @@
 package com.ansh.EventRelay.webhooks;
 
 import java.util.Map;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -27,21 +27,28 @@ public class ApiExceptionHandler {
 				.body(Map.of("error", "not_found"));
 	}
 
+	@ExceptionHandler(ServiceUnavailableException.class)
+	public ResponseEntity<Map<String, String>> serviceUnavailable(ServiceUnavailableException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.body(Map.of("error", "service_unavailable"));
+	}
+
+	/**
+	 * No connection became free within Hikari's {@code connection-timeout}: the pool, not the request
+	 * threads, is the limit, which is the normal way to run out of capacity with virtual threads.
+	 */
+	@ExceptionHandler(CannotCreateTransactionException.class)
+	public ResponseEntity<Map<String, String>> connectionPoolExhausted(CannotCreateTransactionException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.body(Map.of("error", "service_unavailable"));
+	}
+
 	@ExceptionHandler({IllegalArgumentException.class})
 	public ResponseEntity<Map<String, String>> illegalArgument(IllegalArgumentException ex) {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
 				.body(Map.of("error", "bad_request"));
 	}
 
-	@ExceptionHandler(DataIntegrityViolationException.class)
-	public ResponseEntity<Void> dataIntegrityViolation(DataIntegrityViolationException ex) {
-		String message = ex.getMessage();
-		if (message != null && message.contains("uk_webhook_events_source_external_event_id")) {
-			return ResponseEntity.status(HttpStatus.OK).build();
-		}
-		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-	}
-
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<Map<String, String>> internal(Exception ex) {
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
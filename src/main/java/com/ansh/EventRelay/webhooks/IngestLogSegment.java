@@ -0,0 +1,286 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped, fixed-size file of {@link WebhookIngestLog}. After an 8 byte file header, records
+ * are laid out back to back as {@code [int length][int crc32c][body]}, where the body holds the source,
+ * the external event id and the raw payload. A zero length marks the end of the written region; a
+ * record whose length or checksum does not add up is treated as a torn write and ends the segment too.
+ *
+ * <p>Appends are serialized by the owning log. {@link #syncTo(int)} lets every appender wait for
+ * durability, and whichever of them gets the monitor first forces the whole unsynced range, so
+ * concurrent appenders share one {@code msync}.
+ *
+ * <p>Source and external event id lengths are unsigned 16 bit values, so either is limited to
+ * {@link #MAX_FIELD_BYTES}. A record whose fields do not add up is returned by {@link #read} as a
+ * {@link CorruptRecord} instead of failing the read.
+ */
+final class IngestLogSegment {
+	static final int HEADER_BYTES = 8;
+	static final int RECORD_HEADER_BYTES = 8;
+	static final int MAX_FIELD_BYTES = 0xFFFF;
+	private static final int MAGIC = 0x4552574c; // "ERWL"
+	private static final int VERSION = 1;
+
+	private final long sequence;
+	private final Path path;
+	private final MappedByteBuffer buffer;
+	// Not a monitor: request threads wait here across msync, which would pin a virtual thread.
+	private final ReentrantLock syncLock = new ReentrantLock();
+
+	private volatile int writePosition;
+	private volatile int durablePosition;
+	private volatile boolean sealed;
+
+	private IngestLogSegment(long sequence, Path path, MappedByteBuffer buffer, int end) {
+		this.sequence = sequence;
+		this.path = path;
+		this.buffer = buffer;
+		this.writePosition = end;
+		this.durablePosition = end;
+	}
+
+	static IngestLogSegment create(Path directory, long sequence, int sizeBytes) throws IOException {
+		Path path = directory.resolve(fileName(sequence));
+		MappedByteBuffer buffer = map(path, sizeBytes);
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.force(0, HEADER_BYTES);
+		return new IngestLogSegment(sequence, path, buffer, HEADER_BYTES);
+	}
+
+	/**
+	 * Maps an existing segment and finds the end of its intact records. Everything after that end is
+	 * zeroed so that a torn record can never be mistaken for a valid one later.
+	 */
+	static IngestLogSegment recover(Path path, long sequence) throws IOException {
+		MappedByteBuffer buffer = map(path, (int) Files.size(path));
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not an ingest log segment: " + path);
+		}
+		int end = HEADER_BYTES;
+		while (true) {
+			int next = nextRecordEnd(buffer, end);
+			if (next < 0) {
+				break;
+			}
+			end = next;
+		}
+		boolean dirty = false;
+		for (int i = end; i < buffer.capacity(); i++) {
+			if (buffer.get(i) != 0) {
+				buffer.put(i, (byte) 0);
+				dirty = true;
+			}
+		}
+		if (dirty) {
+			buffer.force();
+		}
+		return new IngestLogSegment(sequence, path, buffer, end);
+	}
+
+	static String fileName(long sequence) {
+		return "segment-%020d.log".formatted(sequence);
+	}
+
+	static int recordBytes(String source, String externalEventId, byte[] payload) {
+		return RECORD_HEADER_BYTES
+				+ 2 + source.getBytes(StandardCharsets.UTF_8).length
+				+ 2 + externalEventId.getBytes(StandardCharsets.UTF_8).length
+				+ 4 + payload.length;
+	}
+
+	static boolean fieldsFit(String source, String externalEventId) {
+		return source.getBytes(StandardCharsets.UTF_8).length <= MAX_FIELD_BYTES
+				&& externalEventId.getBytes(StandardCharsets.UTF_8).length <= MAX_FIELD_BYTES;
+	}
+
+	/**
+	 * Appends one record and returns the position right after it, or -1 if it does not fit. Not
+	 * thread-safe; the log serializes appends.
+	 */
+	int append(String source, String externalEventId, byte[] payload) {
+		byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+		byte[] idBytes = externalEventId.getBytes(StandardCharsets.UTF_8);
+		if (sourceBytes.length > MAX_FIELD_BYTES || idBytes.length > MAX_FIELD_BYTES) {
+			throw new IllegalArgumentException("Source and external event id must be at most " + MAX_FIELD_BYTES + " bytes");
+		}
+		int bodyLength = 2 + sourceBytes.length + 2 + idBytes.length + 4 + payload.length;
+		int start = writePosition;
+		int end = start + RECORD_HEADER_BYTES + bodyLength;
+		if (end > buffer.capacity()) {
+			return -1;
+		}
+
+		int at = start + RECORD_HEADER_BYTES;
+		buffer.putShort(at, (short) sourceBytes.length);
+		buffer.put(at + 2, sourceBytes);
+		at += 2 + sourceBytes.length;
+		buffer.putShort(at, (short) idBytes.length);
+		buffer.put(at + 2, idBytes);
+		at += 2 + idBytes.length;
+		buffer.putInt(at, payload.length);
+		buffer.put(at + 4, payload);
+
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.slice(start + RECORD_HEADER_BYTES, bodyLength));
+		buffer.putInt(start + 4, (int) crc.getValue());
+		// The length goes last: a reader that sees it also sees a complete record.
+		buffer.putInt(start, bodyLength);
+		writePosition = end;
+		return end;
+	}
+
+	/**
+	 * Blocks until everything up to {@code position} is on disk.
+	 */
+	void syncTo(int position) {
+		if (durablePosition >= position) {
+			return;
+		}
+		syncLock.lock();
+		try {
+			int from = durablePosition;
+			if (from >= position) {
+				return;
+			}
+			int target = writePosition;
+			buffer.force(from, target - from);
+			durablePosition = target;
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	/**
+	 * Reads up to {@code max} durable records starting at {@code position} into {@code into}, or into
+	 * {@code corrupt} when they cannot be decoded, and returns the position after the last one read. A
+	 * record without a usable length hides where the next one starts, so the rest of the durable region
+	 * is returned as one corrupt record.
+	 */
+	int read(int position, int max, List<IngestRequest> into, List<CorruptRecord> corrupt) {
+		int limit = durablePosition;
+		int at = position;
+		while (into.size() + corrupt.size() < max && at < limit) {
+			int bodyLength = buffer.getInt(at);
+			int body = at + RECORD_HEADER_BYTES;
+			if (bodyLength <= 0 || bodyLength > limit - body) {
+				corrupt.add(new CorruptRecord(at, bytes(at, limit - at)));
+				return limit;
+			}
+			IngestRequest request = decode(body, bodyLength, buffer.getInt(at + 4));
+			if (request != null) {
+				into.add(request);
+			} else {
+				corrupt.add(new CorruptRecord(at, bytes(at, RECORD_HEADER_BYTES + bodyLength)));
+			}
+			at = body + bodyLength;
+		}
+		return at;
+	}
+
+	long sequence() {
+		return sequence;
+	}
+
+	Path path() {
+		return path;
+	}
+
+	int writePosition() {
+		return writePosition;
+	}
+
+	int durablePosition() {
+		return durablePosition;
+	}
+
+	boolean isSealed() {
+		return sealed;
+	}
+
+	void seal() {
+		sealed = true;
+	}
+
+	private IngestRequest decode(int body, int bodyLength, int checksum) {
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.slice(body, bodyLength));
+		if ((int) crc.getValue() != checksum) {
+			return null;
+		}
+		int end = body + bodyLength;
+		int cursor = body;
+		if (end - cursor < 2) {
+			return null;
+		}
+		int sourceLength = Short.toUnsignedInt(buffer.getShort(cursor));
+		cursor += 2;
+		if (end - cursor < sourceLength + 2) {
+			return null;
+		}
+		byte[] sourceBytes = bytes(cursor, sourceLength);
+		cursor += sourceLength;
+		int idLength = Short.toUnsignedInt(buffer.getShort(cursor));
+		cursor += 2;
+		if (end - cursor < idLength + 4) {
+			return null;
+		}
+		byte[] idBytes = bytes(cursor, idLength);
+		cursor += idLength;
+		int payloadLength = buffer.getInt(cursor);
+		cursor += 4;
+		if (payloadLength != end - cursor) {
+			return null;
+		}
+		return new IngestRequest(
+				new String(sourceBytes, StandardCharsets.UTF_8),
+				new String(idBytes, StandardCharsets.UTF_8),
+				bytes(cursor, payloadLength)
+		);
+	}
+
+	private byte[] bytes(int at, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(at, bytes);
+		return bytes;
+	}
+
+	private static int nextRecordEnd(MappedByteBuffer buffer, int at) {
+		if (at + RECORD_HEADER_BYTES > buffer.capacity()) {
+			return -1;
+		}
+		int bodyLength = buffer.getInt(at);
+		int end = at + RECORD_HEADER_BYTES + bodyLength;
+		if (bodyLength <= 0 || end > buffer.capacity() || end < 0) {
+			return -1;
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.slice(at + RECORD_HEADER_BYTES, bodyLength));
+		return (int) crc.getValue() == buffer.getInt(at + 4) ? end : -1;
+	}
+
+	private static MappedByteBuffer map(Path path, int sizeBytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+		}
+	}
+
+	/**
+	 * The raw bytes of a record that could not be decoded, and where it started in the segment.
+	 */
+	record CorruptRecord(int position, byte[] bytes) {
+	}
+}
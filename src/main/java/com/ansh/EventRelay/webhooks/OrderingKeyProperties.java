@@ -0,0 +1,30 @@
+package com.ansh.EventRelay.webhooks;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Where each source's ordering key comes from, e.g.
+ * {@code eventrelay.webhook.ordering.keys.stripe=/data/object/customer}. A value is either a JSON
+ * Pointer into the payload or {@code source}, which orders the whole source as one key. Sources
+ * without an entry are not ordered.
+ */
+@ConfigurationProperties(prefix = "eventrelay.webhook.ordering")
+public class OrderingKeyProperties {
+	public static final String WHOLE_SOURCE = "source";
+
+	private Map<String, String> keys = new HashMap<>();
+
+	public Map<String, String> getKeys() {
+		return keys;
+	}
+
+	public void setKeys(Map<String, String> keys) {
+		this.keys = keys;
+	}
+
+	public String getKeyForSource(String source) {
+		return keys.get(source);
+	}
+}
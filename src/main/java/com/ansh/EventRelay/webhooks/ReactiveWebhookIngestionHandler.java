@@ -0,0 +1,171 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.ansh.EventRelay.metrics.EventRelayMetrics;
+import com.ansh.EventRelay.metrics.EventRelayMetrics.IngestOutcome;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestionResult;
+import io.r2dbc.spi.R2dbcException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@code POST /webhooks/{source}} contract of {@link WebhookIngestionController} as a WebFlux
+ * handler: the same signature check, id extraction, recent-key shortcut, metrics and status codes,
+ * with the write going through {@link ReactiveWebhookIngestionWriter}. No thread waits for a request.
+ *
+ * <p>At most {@code maxInFlight} requests are admitted at once; beyond that a request is answered
+ * with {@code 429} before its body is read. A writer that cannot keep up answers {@code 503}. Both
+ * carry {@code Retry-After}.
+ */
+class ReactiveWebhookIngestionHandler {
+	private static final Logger log = LoggerFactory.getLogger(ReactiveWebhookIngestionHandler.class);
+	private static final byte[] EMPTY = new byte[0];
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private final WebhookSecretsProperties secretsProperties;
+	private final SignatureVerifier signatureVerifier;
+	private final WebhookEventIdExtractor idExtractor;
+	private final RecentIngestKeys recentKeys;
+	private final EventRelayMetrics metrics;
+	private final ReactiveWebhookIngestionWriter writer;
+	private final int maxInFlight;
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	ReactiveWebhookIngestionHandler(
+			WebhookSecretsProperties secretsProperties,
+			SignatureVerifier signatureVerifier,
+			WebhookEventIdExtractor idExtractor,
+			RecentIngestKeys recentKeys,
+			EventRelayMetrics metrics,
+			ReactiveWebhookIngestionWriter writer,
+			int maxInFlight
+	) {
+		this.secretsProperties = secretsProperties;
+		this.signatureVerifier = signatureVerifier;
+		this.idExtractor = idExtractor;
+		this.recentKeys = recentKeys;
+		this.metrics = metrics;
+		this.writer = writer;
+		this.maxInFlight = maxInFlight;
+	}
+
+	RouterFunction<ServerResponse> routes() {
+		return RouterFunctions.route().POST("/webhooks/{source}", this::ingest).build();
+	}
+
+	Mono<ServerResponse> ingest(ServerRequest request) {
+		long startNanos = System.nanoTime();
+		String source = request.pathVariable("source");
+		String secret = secretsProperties.getSecretForSource(source);
+		// Only configured sources get their own time series; the path accepts any name.
+		String metricSource = secret != null ? source : EventRelayMetrics.UNKNOWN_SOURCE;
+
+		boolean json = request.headers().contentType()
+				.map(MediaType.APPLICATION_JSON::isCompatibleWith)
+				.orElse(false);
+		if (!json) {
+			return ServerResponse.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+		}
+		if (inFlight.incrementAndGet() > maxInFlight) {
+			inFlight.decrementAndGet();
+			metrics.recordIngest(metricSource, IngestOutcome.UNAVAILABLE, System.nanoTime() - startNanos);
+			return error(HttpStatus.TOO_MANY_REQUESTS, "too_many_requests");
+		}
+
+		String signature = request.headers().firstHeader("X-Webhook-Signature");
+		return request.bodyToMono(byte[].class)
+				.defaultIfEmpty(EMPTY)
+				.flatMap(body -> ingest(source, secret, metricSource, signature, body))
+				.flatMap(result -> {
+					metrics.recordIngest(metricSource, result.duplicate() ? IngestOutcome.DUPLICATE : IngestOutcome.ACCEPTED,
+							System.nanoTime() - startNanos);
+					return ServerResponse.ok().build();
+				})
+				.onErrorResume(ex -> {
+					boolean rejected = isRejection(ex);
+					metrics.recordIngest(metricSource, rejected ? IngestOutcome.REJECTED : IngestOutcome.UNAVAILABLE,
+							System.nanoTime() - startNanos);
+					return respond(ex);
+				})
+				.doFinally(signal -> inFlight.decrementAndGet());
+	}
+
+	private Mono<IngestionResult> ingest(String source, String secret, String metricSource, String signature, byte[] body) {
+		long verifyStartNanos = System.nanoTime();
+		boolean valid = signatureVerifier.isValid(body, secret, signature);
+		metrics.recordSignatureVerify(metricSource, System.nanoTime() - verifyStartNanos);
+		if (!valid) {
+			return Mono.error(new UnauthorizedException("Invalid signature"));
+		}
+
+		String externalEventId = idExtractor.extract(body);
+		if (externalEventId == null || externalEventId.isBlank()) {
+			return Mono.error(new BadRequestException("Missing or invalid event ID"));
+		}
+		Mono<IngestionResult> result = recentKeys.contains(source, externalEventId)
+				? Mono.just(IngestionResult.accepted(null, true))
+				: writer.ingest(new IngestRequest(source, externalEventId, body))
+						.doOnNext(written -> recentKeys.remember(source, externalEventId));
+		return result.doOnNext(written -> {
+			if (written.duplicate()) {
+				log.info("Duplicate event acknowledged: source={}, externalEventId={}", source, externalEventId);
+			}
+		});
+	}
+
+	private static boolean isRejection(Throwable ex) {
+		return ex instanceof UnauthorizedException
+				|| ex instanceof BadRequestException
+				|| ex instanceof DataBufferLimitException
+				|| isInvalidPayload(ex);
+	}
+
+	/**
+	 * Only the id was parsed up front; Postgres rejects the rest if it is not valid UTF-8 JSON. That
+	 * surfaces as a data exception, SQLSTATE class {@code 22}, whichever Spring type it is translated to.
+	 */
+	private static boolean isInvalidPayload(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof R2dbcException r2dbc) {
+				return r2dbc.getSqlState() != null && r2dbc.getSqlState().startsWith("22");
+			}
+		}
+		return false;
+	}
+
+	private static Mono<ServerResponse> respond(Throwable ex) {
+		if (ex instanceof UnauthorizedException) {
+			return error(HttpStatus.UNAUTHORIZED, "unauthorized");
+		}
+		if (ex instanceof BadRequestException || isInvalidPayload(ex)) {
+			return error(HttpStatus.BAD_REQUEST, "bad_request");
+		}
+		if (ex instanceof DataBufferLimitException) {
+			return error(HttpStatus.PAYLOAD_TOO_LARGE, "payload_too_large");
+		}
+		if (ex instanceof ServiceUnavailableException) {
+			return error(HttpStatus.SERVICE_UNAVAILABLE, "service_unavailable");
+		}
+		log.warn("Reactive ingest failed", ex);
+		return error(HttpStatus.INTERNAL_SERVER_ERROR, "internal_error");
+	}
+
+	private static Mono<ServerResponse> error(HttpStatus status, String error) {
+		ServerResponse.BodyBuilder response = ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON);
+		if (status == HttpStatus.TOO_MANY_REQUESTS || status == HttpStatus.SERVICE_UNAVAILABLE) {
+			response.header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+		}
+		return response.bodyValue(Map.of("error", error));
+	}
+}
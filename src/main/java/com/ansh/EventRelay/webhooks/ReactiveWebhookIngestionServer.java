@@ -0,0 +1,155 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.ansh.EventRelay.metrics.EventRelayMetrics;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Serves {@link ReactiveWebhookIngestionHandler} on its own Reactor Netty port, next to the servlet
+ * container, with its own R2DBC pool. The pool is deliberately not a bean: Spring Boot backs off its
+ * JDBC {@code DataSource} as soon as a {@code ConnectionFactory} bean exists, and the rest of the
+ * application still runs on JPA.
+ *
+ * <p>The R2DBC URL is derived from {@code spring.datasource.url} unless
+ * {@code eventrelay.ingest.reactive.r2dbcUrl} is set.
+ */
+@Component
+@ConditionalOnProperty(name = "eventrelay.ingest.reactive.enabled", havingValue = "true")
+public class ReactiveWebhookIngestionServer implements SmartLifecycle {
+	private static final Logger log = LoggerFactory.getLogger(ReactiveWebhookIngestionServer.class);
+	private static final String JDBC_PREFIX = "jdbc:";
+
+	private final ConnectionPool connectionPool;
+	private final ReactiveWebhookIngestionWriter writer;
+	private final ReactiveWebhookIngestionHandler handler;
+	private final int port;
+	private final int maxBodyBytes;
+
+	private volatile DisposableServer server;
+
+	public ReactiveWebhookIngestionServer(
+			WebhookSecretsProperties secretsProperties,
+			SignatureVerifier signatureVerifier,
+			WebhookEventIdExtractor idExtractor,
+			RecentIngestKeys recentKeys,
+			EventRelayMetrics metrics,
+			WebhookIngestionService ingestionService,
+			@Value("${spring.datasource.url}") String jdbcUrl,
+			@Value("${spring.datasource.username:}") String username,
+			@Value("${spring.datasource.password:}") String password,
+			@Value("${eventrelay.ingest.reactive.r2dbcUrl:}") String r2dbcUrl,
+			@Value("${eventrelay.ingest.reactive.port:8081}") int port,
+			@Value("${eventrelay.ingest.reactive.maxInFlight:10000}") int maxInFlight,
+			@Value("${eventrelay.ingest.reactive.maxBatchSize:100}") int maxBatchSize,
+			@Value("${eventrelay.ingest.reactive.lingerMs:2}") long lingerMs,
+			@Value("${eventrelay.ingest.reactive.queueCapacity:10000}") int queueCapacity,
+			@Value("${eventrelay.ingest.reactive.timeoutMs:10000}") long timeoutMs,
+			@Value("${eventrelay.ingest.reactive.poolSize:4}") int poolSize,
+			@Value("${eventrelay.ingest.reactive.maxBodyBytes:1048576}") int maxBodyBytes,
+			@Value("${eventrelay.ingest.notify:true}") boolean notifyWorkers
+	) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("eventrelay.ingest.reactive.maxInFlight must be at least 1");
+		}
+		ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbcUrl.isBlank() ? toR2dbcUrl(jdbcUrl) : r2dbcUrl)
+				.mutate()
+				.option(ConnectionFactoryOptions.USER, username)
+				.option(ConnectionFactoryOptions.PASSWORD, password)
+				.build();
+		this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+				.initialSize(1)
+				.maxSize(poolSize)
+				.build());
+		this.writer = new ReactiveWebhookIngestionWriter(
+				DatabaseClient.create(connectionPool),
+				ingestionService,
+				notifyWorkers,
+				maxBatchSize,
+				Duration.ofMillis(lingerMs),
+				poolSize,
+				queueCapacity,
+				Duration.ofMillis(timeoutMs)
+		);
+		this.handler = new ReactiveWebhookIngestionHandler(
+				secretsProperties, signatureVerifier, idExtractor, recentKeys, metrics, writer, maxInFlight);
+		this.port = port;
+		this.maxBodyBytes = maxBodyBytes;
+	}
+
+	/**
+	 * {@code jdbc:postgresql://host:port/db?params} becomes {@code r2dbc:postgresql://host:port/db};
+	 * JDBC driver parameters do not carry over.
+	 */
+	static String toR2dbcUrl(String jdbcUrl) {
+		if (!jdbcUrl.startsWith(JDBC_PREFIX)) {
+			throw new IllegalArgumentException("Cannot derive an R2DBC URL from " + jdbcUrl
+					+ "; set eventrelay.ingest.reactive.r2dbcUrl");
+		}
+		String url = "r2dbc:" + jdbcUrl.substring(JDBC_PREFIX.length());
+		int query = url.indexOf('?');
+		return query < 0 ? url : url.substring(0, query);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (server != null) {
+			return;
+		}
+		writer.start();
+		HandlerStrategies strategies = HandlerStrategies.builder()
+				.codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxBodyBytes))
+				.build();
+		ReactorHttpHandlerAdapter adapter =
+				new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(handler.routes(), strategies));
+		server = HttpServer.create().port(port).handle(adapter).bindNow();
+		log.info("Reactive webhook ingestion listening on port {}", server.port());
+	}
+
+	/**
+	 * Stops accepting connections, lets queued requests be written, then closes the pool.
+	 */
+	@Override
+	public synchronized void stop() {
+		if (server == null) {
+			return;
+		}
+		server.disposeNow();
+		writer.stop();
+		connectionPool.dispose();
+		server = null;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return server != null;
+	}
+
+	@Override
+	public int getPhase() {
+		// Alongside the servlet container's web server.
+		return SmartLifecycle.DEFAULT_PHASE - 1024;
+	}
+
+	/**
+	 * The bound port, which differs from the configured one when that is {@code 0}.
+	 */
+	public int getPort() {
+		DisposableServer current = server;
+		return current != null ? current.port() : port;
+	}
+}
@@ -0,0 +1,215 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.ansh.EventRelay.events.WebhookEventRepository;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestionResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Group commit for the reactive ingest path, the non-blocking counterpart of
+ * {@link WebhookIngestionBatcher}. Requests go into a bounded queue; batches of up to
+ * {@code maxBatchSize}, closed after {@code linger}, are written with
+ * {@link WebhookEventRepository#INSERT_EVENT_BATCH} over R2DBC, at most {@code concurrency} at a time.
+ * The queue is only drained as fast as those writes complete, so a database that falls behind fills
+ * it, and further requests are refused with {@link ServiceUnavailableException} instead of piling up.
+ * A request whose batch has not committed within {@code timeout} is refused the same way.
+ *
+ * <p>Requests are emitted from Netty event-loop threads concurrently. The queue is a multi-producer
+ * queue behind an unsafe unicast sink, which is safe for concurrent emission with such a queue, so
+ * an emission never retries or spins; {@code queueCapacity} is enforced by counting queued requests.
+ *
+ * <p>Dedup semantics are those of the statement: duplicates, including repeats within a batch, come
+ * back with {@code duplicate} set. A batch that fails as a whole is retried one request at a time.
+ */
+class ReactiveWebhookIngestionWriter {
+	private static final Logger log = LoggerFactory.getLogger(ReactiveWebhookIngestionWriter.class);
+	private static final String BYTEA_PAYLOADS = "cast(:payloads as bytea[])";
+	// r2dbc-postgresql cannot bind bytea[], so payloads travel as base64 text and are decoded in place.
+	private static final String BASE64_PAYLOADS =
+			"(select array_agg(decode(p, 'base64') order by n) from unnest(cast(:payloads as text[])) with ordinality as b(p, n))";
+	static final String INSERT_SQL;
+
+	static {
+		if (!WebhookEventRepository.INSERT_EVENT_BATCH.contains(BYTEA_PAYLOADS)) {
+			throw new IllegalStateException("INSERT_EVENT_BATCH no longer binds " + BYTEA_PAYLOADS);
+		}
+		INSERT_SQL = WebhookEventRepository.INSERT_EVENT_BATCH.replace(BYTEA_PAYLOADS, BASE64_PAYLOADS);
+	}
+
+	private final DatabaseClient databaseClient;
+	private final WebhookIngestionService ingestionService;
+	private final boolean notifyWorkers;
+	private final int maxBatchSize;
+	private final Duration linger;
+	private final int concurrency;
+	private final Duration timeout;
+	private final int queueCapacity;
+	private final AtomicInteger queued = new AtomicInteger();
+	private final Sinks.Many<PendingIngest> queue;
+
+	private volatile boolean stopped;
+
+	private CompletableFuture<Void> completion;
+
+	ReactiveWebhookIngestionWriter(
+			DatabaseClient databaseClient,
+			WebhookIngestionService ingestionService,
+			boolean notifyWorkers,
+			int maxBatchSize,
+			Duration linger,
+			int concurrency,
+			int queueCapacity,
+			Duration timeout
+	) {
+		if (maxBatchSize < 1 || concurrency < 1 || queueCapacity < 1) {
+			throw new IllegalArgumentException(
+					"eventrelay.ingest.reactive.maxBatchSize, poolSize and queueCapacity must be at least 1");
+		}
+		this.databaseClient = databaseClient;
+		this.ingestionService = ingestionService;
+		this.notifyWorkers = notifyWorkers;
+		this.maxBatchSize = maxBatchSize;
+		this.linger = linger;
+		this.concurrency = concurrency;
+		this.timeout = timeout;
+		this.queueCapacity = queueCapacity;
+		this.queue = Sinks.unsafe().many().unicast().onBackpressureBuffer(Queues.<PendingIngest>unboundedMultiproducer().get());
+	}
+
+	void start() {
+		completion = queue.asFlux()
+				.doOnNext(pending -> queued.decrementAndGet())
+				// Fair backpressure: batches are only cut while a write slot is free, so the queue stays bounded.
+				.bufferTimeout(maxBatchSize, linger, true)
+				.flatMap(this::write, concurrency)
+				.then()
+				.toFuture();
+	}
+
+	/**
+	 * Queues one webhook and completes once the batch holding it has committed.
+	 */
+	Mono<IngestionResult> ingest(IngestRequest request) {
+		if (stopped) {
+			return Mono.error(new ServiceUnavailableException("Ingest is shutting down"));
+		}
+		if (queued.incrementAndGet() > queueCapacity) {
+			queued.decrementAndGet();
+			return Mono.error(new ServiceUnavailableException("Ingest queue is full"));
+		}
+		Sinks.One<IngestionResult> result = Sinks.one();
+		if (queue.tryEmitNext(new PendingIngest(request, result)).isFailure()) {
+			queued.decrementAndGet();
+			return Mono.error(new ServiceUnavailableException("Ingest queue is closed"));
+		}
+		return result.asMono().timeout(timeout,
+				Mono.error(() -> new ServiceUnavailableException("Ingest did not commit within " + timeout)));
+	}
+
+	/**
+	 * Stops taking requests and waits up to {@code timeout} for the queued ones to be written. A request
+	 * that raced past the check is refused by its own timeout.
+	 */
+	void stop() {
+		stopped = true;
+		queue.tryEmitComplete();
+		try {
+			completion.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("Reactive ingest writer did not drain within {}", timeout);
+		} catch (ExecutionException e) {
+			log.warn("Reactive ingest writer stopped with an error", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Mono<Void> write(List<PendingIngest> batch) {
+		return insert(batch)
+				.doOnNext(results -> complete(batch, results))
+				.then()
+				.onErrorResume(ex -> {
+					log.warn("Reactive ingest batch of {} failed; retrying its requests one by one", batch.size(), ex);
+					return Flux.fromIterable(batch)
+							.concatMap(pending -> insert(List.of(pending))
+									.doOnNext(results -> complete(List.of(pending), results))
+									.then()
+									.onErrorResume(single -> {
+										pending.result().tryEmitError(single);
+										return Mono.empty();
+									}))
+							.then();
+				});
+	}
+
+	private Mono<List<IngestionResult>> insert(List<PendingIngest> batch) {
+		int size = batch.size();
+		UUID[] ids = new UUID[size];
+		String[] sources = new String[size];
+		String[] externalEventIds = new String[size];
+		String[] payloads = new String[size];
+		String[] orderingKeys = new String[size];
+		String[] paths = new String[size];
+		Base64.Encoder encoder = Base64.getEncoder();
+		for (int i = 0; i < size; i++) {
+			IngestRequest request = batch.get(i).request();
+			ids[i] = UUID.randomUUID();
+			sources[i] = request.source();
+			externalEventIds[i] = request.externalEventId();
+			payloads[i] = encoder.encodeToString(request.payload());
+			orderingKeys[i] = ingestionService.orderingKeyFor(request.source());
+			paths[i] = ingestionService.orderingPathFor(request.source());
+		}
+
+		Mono<Set<UUID>> inserted = databaseClient.sql(INSERT_SQL)
+				.bind("ids", ids)
+				.bind("sources", sources)
+				.bind("externalEventIds", externalEventIds)
+				.bind("payloads", payloads)
+				.bind("orderingKeys", orderingKeys)
+				.bind("orderingPaths", paths)
+				.map(row -> row.get(0, UUID.class))
+				.all()
+				.collect(Collectors.toSet());
+		if (notifyWorkers) {
+			// The statement has committed by now, so listeners that wake up find the rows.
+			inserted = inserted.flatMap(set -> set.isEmpty()
+					? Mono.just(set)
+					: databaseClient.sql("notify webhook_events_ready").then().thenReturn(set));
+		}
+		return inserted.map(set -> {
+			List<IngestionResult> results = new ArrayList<>(size);
+			for (UUID id : ids) {
+				results.add(set.contains(id) ? IngestionResult.accepted(id, false) : IngestionResult.accepted(null, true));
+			}
+			return results;
+		});
+	}
+
+	private static void complete(List<PendingIngest> batch, List<IngestionResult> results) {
+		for (int i = 0; i < batch.size(); i++) {
+			batch.get(i).result().tryEmitValue(results.get(i));
+		}
+	}
+
+	private record PendingIngest(IngestRequest request, Sinks.One<IngestionResult> result) {
+	}
+}
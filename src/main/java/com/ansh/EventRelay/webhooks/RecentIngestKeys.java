@@ -0,0 +1,68 @@
+package com.ansh.EventRelay.webhooks;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, in-memory record of {@code (source, externalEventId)} keys this node has recently seen
+ * committed, so that retry storms from a provider are acknowledged without a database round trip.
+ * Only keys known to be stored are remembered, so a hit is always a true duplicate. Entries expire
+ * after {@code ttlSeconds}, which has to stay well below the dedup window; the database remains the
+ * source of truth for everything older or seen by another node.
+ */
+@Component
+public class RecentIngestKeys {
+	private final int capacity;
+	private final long ttlNanos;
+	private final Map<Key, Long> seenAt;
+
+	public RecentIngestKeys(
+			@Value("${eventrelay.ingest.recentKeys.capacity:100000}") int capacity,
+			@Value("${eventrelay.ingest.recentKeys.ttlSeconds:300}") long ttlSeconds
+	) {
+		this.capacity = capacity;
+		this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+		this.seenAt = new LinkedHashMap<>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+				return size() > RecentIngestKeys.this.capacity;
+			}
+		};
+	}
+
+	public boolean contains(String source, String externalEventId) {
+		if (capacity <= 0) {
+			return false;
+		}
+		Key key = new Key(source, externalEventId);
+		synchronized (seenAt) {
+			Long at = seenAt.get(key);
+			if (at == null) {
+				return false;
+			}
+			if (System.nanoTime() - at > ttlNanos) {
+				seenAt.remove(key);
+				return false;
+			}
+			return true;
+		}
+	}
+
+	public void remember(String source, String externalEventId) {
+		if (capacity <= 0) {
+			return;
+		}
+		Key key = new Key(source, externalEventId);
+		synchronized (seenAt) {
+			// Re-inserting moves the key to the young end, keeping eviction order equal to expiry order.
+			seenAt.remove(key);
+			seenAt.put(key, System.nanoTime());
+		}
+	}
+
+	private record Key(String source, String externalEventId) {
+	}
+}
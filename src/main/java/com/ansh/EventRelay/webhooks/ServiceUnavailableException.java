@@ -0,0 +1,7 @@
+package com.ansh.EventRelay.webhooks;
+
+public class ServiceUnavailableException extends RuntimeException {
+	public ServiceUnavailableException(String message) {
+		super(message);
+	}
+}
@@ -1,17 +1,42 @@
 package com.ansh.EventRelay.webhooks;
 
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Verifies Base64-encoded HMAC-SHA256 signatures. {@link Mac} instances are pooled per secret,
+ * initialized once and cloned from a prototype, so that a verification neither looks up a provider
+ * nor expands the key.
+ */
 @Component
 public class SignatureVerifier {
-	private static final String HMAC_ALGO = "HmacSHA256";
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final int DIGEST_LENGTH = 32;
+	private static final int DEFAULT_POOL_SIZE = 64;
+
+	private final int poolSize;
+	private final ConcurrentMap<String, MacPool> pools = new ConcurrentHashMap<>();
+
+	public SignatureVerifier() {
+		this(DEFAULT_POOL_SIZE);
+	}
+
+	@Autowired
+	public SignatureVerifier(@Value("${eventrelay.webhook.signature.poolSize:64}") int poolSize) {
+		this.poolSize = poolSize;
+	}
 
 	public boolean isValid(byte[] rawBody, String secret, String providedSignatureBase64) {
 		if (secret == null || secret.isBlank()) {
@@ -21,23 +46,80 @@ public class SignatureVerifier {
 			return false;
 		}
 
-		byte[] expected = computeHmac(rawBody, secret);
 		byte[] provided;
 		try {
 			provided = Base64.getDecoder().decode(providedSignatureBase64);
 		} catch (IllegalArgumentException e) {
 			return false;
 		}
-		return MessageDigest.isEqual(expected, provided);
-	}
+		if (provided.length != DIGEST_LENGTH) {
+			return false;
+		}
 
-	private byte[] computeHmac(byte[] data, String secret) {
+		MacPool pool = pools.get(secret);
+		if (pool == null) {
+			pool = pools.computeIfAbsent(secret, key -> new MacPool(key, poolSize));
+		}
+		Pooled pooled = pool.borrow();
+		boolean valid;
 		try {
-			Mac mac = Mac.getInstance(HMAC_ALGO);
-			mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGO));
-			return mac.doFinal(data);
-		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			pooled.mac.update(rawBody);
+			pooled.mac.doFinal(pooled.expected, 0);
+			valid = MessageDigest.isEqual(pooled.expected, provided);
+		} catch (ShortBufferException e) {
+			// The Mac may hold a partial computation; let it go instead of returning it to the pool.
 			throw new IllegalStateException("Unable to compute HMAC", e);
 		}
+		pool.release(pooled);
+		return valid;
+	}
+
+	private record Pooled(Mac mac, byte[] expected) {
+	}
+
+	/**
+	 * Initialized {@link Mac} instances for one secret. New ones are cloned from the prototype, or
+	 * initialized with the key when the provider does not support cloning; instances beyond the pool
+	 * size are dropped instead of returned.
+	 */
+	private static final class MacPool {
+		private final SecretKeySpec key;
+		private final Mac prototype;
+		private final BlockingQueue<Pooled> idle;
+
+		private MacPool(String secret, int size) {
+			this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+			this.prototype = newMac(key);
+			this.idle = new ArrayBlockingQueue<>(Math.max(1, size));
+		}
+
+		private Pooled borrow() {
+			Pooled pooled = idle.poll();
+			return pooled != null ? pooled : new Pooled(copy(), new byte[DIGEST_LENGTH]);
+		}
+
+		private void release(Pooled pooled) {
+			idle.offer(pooled);
+		}
+
+		private Mac copy() {
+			try {
+				synchronized (prototype) {
+					return (Mac) prototype.clone();
+				}
+			} catch (CloneNotSupportedException e) {
+				return newMac(key);
+			}
+		}
+	}
+
+	private static Mac newMac(SecretKeySpec key) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+		}
 	}
 }
@@ -0,0 +1,68 @@
+package com.ansh.EventRelay.webhooks;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-source scheduling limits, e.g. {@code eventrelay.webhook.limits.sources.stripe.maxInFlight=20}.
+ * Sources without an entry use {@code eventrelay.webhook.limits.defaults.*}.
+ */
+@ConfigurationProperties(prefix = "eventrelay.webhook.limits")
+public class SourceLimitsProperties {
+	private SourceLimit defaults = new SourceLimit();
+	private Map<String, SourceLimit> sources = new HashMap<>();
+
+	public SourceLimit getDefaults() {
+		return defaults;
+	}
+
+	public void setDefaults(SourceLimit defaults) {
+		this.defaults = defaults;
+	}
+
+	public Map<String, SourceLimit> getSources() {
+		return sources;
+	}
+
+	public void setSources(Map<String, SourceLimit> sources) {
+		this.sources = sources;
+	}
+
+	public SourceLimit getLimitForSource(String source) {
+		return sources.getOrDefault(source, defaults);
+	}
+
+	public static class SourceLimit {
+		/** Events of the source processed at once across all workers; 0 means unlimited. */
+		private int maxInFlight;
+		/** Events of the source claimed per second by one node; 0 means unlimited. */
+		private double ratePerSecond;
+		/** Share of a contended batch relative to other sources. */
+		private int weight = 1;
+
+		public int getMaxInFlight() {
+			return maxInFlight;
+		}
+
+		public void setMaxInFlight(int maxInFlight) {
+			this.maxInFlight = maxInFlight;
+		}
+
+		public double getRatePerSecond() {
+			return ratePerSecond;
+		}
+
+		public void setRatePerSecond(double ratePerSecond) {
+			this.ratePerSecond = ratePerSecond;
+		}
+
+		public int getWeight() {
+			return weight;
+		}
+
+		public void setWeight(int weight) {
+			this.weight = weight;
+		}
+	}
+}
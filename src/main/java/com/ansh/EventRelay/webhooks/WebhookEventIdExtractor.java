@@ -0,0 +1,50 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pulls the top-level {@code id} out of a webhook body with a streaming parser. Sibling values are
+ * skipped without being materialized, and parsing stops as soon as {@code id} has been read, so the
+ * cost does not depend on what follows it. The rest of the document is validated by Postgres when
+ * the body is stored as {@code jsonb}.
+ */
+@Component
+public class WebhookEventIdExtractor {
+	private final JsonFactory jsonFactory;
+
+	public WebhookEventIdExtractor(ObjectMapper objectMapper) {
+		this.jsonFactory = objectMapper.getFactory();
+	}
+
+	/**
+	 * Returns the {@code id} as text, an empty string if it is an object or array, or {@code null}
+	 * if the body is not a JSON object, has no {@code id}, or is malformed before the {@code id}.
+	 */
+	public String extract(byte[] body) {
+		try (JsonParser parser = jsonFactory.createParser(body)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				JsonToken value = parser.nextToken();
+				if ("id".equals(name)) {
+					return switch (value) {
+						case VALUE_NULL -> null;
+						case START_OBJECT, START_ARRAY -> "";
+						default -> parser.getText();
+					};
+				}
+				parser.skipChildren();
+			}
+			return null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
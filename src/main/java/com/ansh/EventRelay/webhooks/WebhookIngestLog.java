@@ -0,0 +1,497 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.ansh.EventRelay.webhooks.IngestLogSegment.CorruptRecord;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asynchronous acknowledgement mode for ingest. A verified webhook is appended to a local,
+ * memory-mapped segment log and acknowledged as soon as its record is on disk; a background drainer
+ * moves the records into {@code webhook_events} in batches through
+ * {@link WebhookIngestionService#ingestBatch(List)} and checkpoints its position after every commit.
+ * Replaying after a crash is safe because that insert skips keys it has already stored.
+ *
+ * <p>On start the log is recovered: segments are scanned up to their last intact record and
+ * draining resumes at the checkpoint. When {@code maxSegments} segments are waiting to be drained,
+ * for example while Postgres is down, new webhooks are rejected with {@code 503} so that providers
+ * retry later.
+ *
+ * <p>Nothing is acknowledged that Postgres would refuse: before a webhook is appended it is checked
+ * the way the insert will check it. A record that Postgres still rejects while draining is parked in
+ * {@code dead-letter.ndjson} next to the segments rather than dropped, so an acknowledged webhook is
+ * never lost silently.
+ */
+@Component
+@ConditionalOnProperty(name = "eventrelay.ingest.wal.enabled", havingValue = "true")
+public class WebhookIngestLog implements SmartLifecycle {
+	private static final Logger log = LoggerFactory.getLogger(WebhookIngestLog.class);
+	private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{20})\\.log");
+	private static final String CHECKPOINT = "checkpoint";
+	private static final String DEAD_LETTER = "dead-letter.ndjson";
+	// source and external_event_id are varchar(255), which counts characters.
+	private static final int MAX_KEY_CHARS = 255;
+	// The limits of Postgres' numeric type, which jsonb stores every number as.
+	private static final int MAX_NUMERIC_INTEGER_DIGITS = 131072;
+	private static final int MAX_NUMERIC_SCALE = 16383;
+
+	private final WebhookIngestionService ingestionService;
+	private final ObjectMapper objectMapper;
+	private final JsonFactory jsonFactory;
+	private final Path directory;
+	private final int segmentBytes;
+	private final int maxSegments;
+	private final int drainBatchSize;
+	private final Duration drainIdleDelay;
+	private final Duration retryDelay;
+	private final Duration shutdownTimeout;
+	private final ReentrantLock appendLock = new ReentrantLock();
+	private final Deque<IngestLogSegment> segments = new ArrayDeque<>();
+
+	private volatile boolean running;
+	private volatile long stopDeadline;
+	private Thread drainer;
+	private long checkpointSequence;
+	private int checkpointPosition;
+
+	public WebhookIngestLog(
+			WebhookIngestionService ingestionService,
+			ObjectMapper objectMapper,
+			@Value("${eventrelay.ingest.wal.dir:data/ingest-wal}") String directory,
+			@Value("${eventrelay.ingest.wal.segmentBytes:67108864}") int segmentBytes,
+			@Value("${eventrelay.ingest.wal.maxSegments:8}") int maxSegments,
+			@Value("${eventrelay.ingest.wal.drainBatchSize:500}") int drainBatchSize,
+			@Value("${eventrelay.ingest.wal.drainIdleMs:20}") long drainIdleMs,
+			@Value("${eventrelay.ingest.wal.retryDelayMs:1000}") long retryDelayMs,
+			@Value("${eventrelay.ingest.wal.shutdownTimeoutMs:30000}") long shutdownTimeoutMs
+	) {
+		if (maxSegments < 1 || segmentBytes <= IngestLogSegment.HEADER_BYTES) {
+			throw new IllegalArgumentException("eventrelay.ingest.wal.maxSegments and segmentBytes are too small");
+		}
+		this.ingestionService = ingestionService;
+		this.objectMapper = objectMapper;
+		this.jsonFactory = objectMapper.getFactory();
+		this.directory = Path.of(directory);
+		this.segmentBytes = segmentBytes;
+		this.maxSegments = maxSegments;
+		this.drainBatchSize = drainBatchSize;
+		this.drainIdleDelay = Duration.ofMillis(drainIdleMs);
+		this.retryDelay = Duration.ofMillis(retryDelayMs);
+		this.shutdownTimeout = Duration.ofMillis(shutdownTimeoutMs);
+	}
+
+	/**
+	 * Appends one webhook and returns once its record is durable on local disk. The webhook is checked
+	 * against everything the insert will enforce first, since after this point the caller can no longer
+	 * be told about it.
+	 */
+	public void append(String source, String externalEventId, byte[] payload) {
+		if (!running) {
+			throw new ServiceUnavailableException("Ingest log is not running");
+		}
+		String rejection = rejectionReason(source, externalEventId, payload);
+		if (rejection != null) {
+			throw new BadRequestException(rejection);
+		}
+		if (!IngestLogSegment.fieldsFit(source, externalEventId)) {
+			throw new BadRequestException("Source or event ID does not fit into an ingest log record");
+		}
+		if (IngestLogSegment.recordBytes(source, externalEventId, payload) > segmentBytes - IngestLogSegment.HEADER_BYTES) {
+			throw new BadRequestException("Payload does not fit into an ingest log segment");
+		}
+
+		IngestLogSegment segment;
+		int end;
+		appendLock.lock();
+		try {
+			segment = segments.peekLast();
+			end = segment.append(source, externalEventId, payload);
+			if (end < 0) {
+				if (segments.size() >= maxSegments) {
+					throw new ServiceUnavailableException("Ingest log is full");
+				}
+				segment.seal();
+				segment = IngestLogSegment.create(directory, segment.sequence() + 1, segmentBytes);
+				segments.addLast(segment);
+				end = segment.append(source, externalEventId, payload);
+			}
+		} catch (IOException e) {
+			log.error("Unable to roll the ingest log in {}", directory, e);
+			throw new ServiceUnavailableException("Ingest log is unavailable");
+		} finally {
+			appendLock.unlock();
+		}
+
+		segment.syncTo(end);
+		LockSupport.unpark(drainer);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		try {
+			recover();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to recover the ingest log in " + directory, e);
+		}
+		running = true;
+		drainer = Thread.ofPlatform().name("ingest-log-drainer").start(this::drainLoop);
+		log.info("Ingest log started dir={} segments={} checkpoint={}:{}",
+			directory, segments.size(), checkpointSequence, checkpointPosition);
+	}
+
+	/**
+	 * Stops accepting appends and keeps draining until the log is empty or {@code shutdownTimeoutMs}
+	 * has passed. Whatever is left is picked up again on the next start.
+	 */
+	@Override
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		stopDeadline = System.nanoTime() + shutdownTimeout.toNanos();
+		running = false;
+		LockSupport.unpark(drainer);
+		try {
+			drainer.join(shutdownTimeout.plusSeconds(1).toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (drainer.isAlive()) {
+			drainer.interrupt();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		// Stop after the web server, like the batcher, so acknowledged webhooks can still be drained.
+		return SmartLifecycle.DEFAULT_PHASE - 4096;
+	}
+
+	/**
+	 * Number of segments currently holding records that have not been drained, including the one
+	 * being appended to.
+	 */
+	public int getSegmentCount() {
+		appendLock.lock();
+		try {
+			return segments.size();
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	private void drainLoop() {
+		List<IngestRequest> batch = new ArrayList<>(drainBatchSize);
+		List<CorruptRecord> corrupt = new ArrayList<>();
+		while (!Thread.currentThread().isInterrupted()) {
+			boolean stopping = !running;
+			if (stopping && System.nanoTime() > stopDeadline) {
+				return;
+			}
+
+			// Nothing may end this thread while the log runs: acknowledged webhooks would stop draining.
+			try {
+				IngestLogSegment head = head();
+				if (head.sequence() != checkpointSequence) {
+					checkpointSequence = head.sequence();
+					checkpointPosition = IngestLogSegment.HEADER_BYTES;
+				}
+				int next = head.read(checkpointPosition, drainBatchSize, batch, corrupt);
+				if (batch.isEmpty() && corrupt.isEmpty()) {
+					if (head.isSealed() && checkpointPosition == head.writePosition()
+							&& head.durablePosition() == head.writePosition()) {
+						retire(head);
+						continue;
+					}
+					if (stopping) {
+						return;
+					}
+					LockSupport.parkNanos(drainIdleDelay.toNanos());
+					continue;
+				}
+
+				if (store(batch) && park(head, corrupt)) {
+					checkpointPosition = next;
+					writeCheckpoint();
+				} else if (stopping) {
+					return;
+				} else {
+					LockSupport.parkNanos(retryDelay.toNanos());
+				}
+			} catch (RuntimeException ex) {
+				log.error("Ingest log drain failed; retrying in {}", retryDelay, ex);
+				LockSupport.parkNanos(retryDelay.toNanos());
+			} finally {
+				batch.clear();
+				corrupt.clear();
+			}
+		}
+	}
+
+	/**
+	 * Stores a batch, falling back to one record at a time when the batch fails. A record Postgres
+	 * rejects as invalid data is parked in the dead-letter file, since it would otherwise block the log
+	 * forever; any other failure, including failing to park, leaves the batch in place to be retried.
+	 */
+	private boolean store(List<IngestRequest> batch) {
+		try {
+			ingestionService.ingestBatch(batch);
+			return true;
+		} catch (Exception ex) {
+			log.warn("Draining {} ingest log record(s) failed; retrying them one by one", batch.size(), ex);
+		}
+		for (IngestRequest request : batch) {
+			try {
+				ingestionService.ingest(request.source(), request.externalEventId(), request.payload());
+			} catch (DataIntegrityViolationException ex) {
+				if (!deadLetter(request, ex.getMostSpecificCause().getMessage())) {
+					return false;
+				}
+				log.error("Parked ingest log record Postgres rejected in {} source={} externalEventId={}",
+					directory.resolve(DEAD_LETTER), request.source(), request.externalEventId(), ex);
+			} catch (Exception ex) {
+				log.warn("Ingest log drain is blocked; retrying in {}", retryDelay, ex);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean park(IngestLogSegment segment, List<CorruptRecord> corrupt) {
+		for (CorruptRecord record : corrupt) {
+			ObjectNode entry = objectMapper.createObjectNode()
+					.put("reason", "Unreadable ingest log record")
+					.put("segment", segment.sequence())
+					.put("position", record.position())
+					.put("record", Base64.getEncoder().encodeToString(record.bytes()));
+			if (!deadLetter(entry)) {
+				return false;
+			}
+			log.error("Parked unreadable ingest log record in {} segment={} position={}",
+				directory.resolve(DEAD_LETTER), segment.sequence(), record.position());
+		}
+		return true;
+	}
+
+	private IngestLogSegment head() {
+		appendLock.lock();
+		try {
+			return segments.peekFirst();
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	private void retire(IngestLogSegment head) {
+		appendLock.lock();
+		try {
+			segments.removeFirst();
+			checkpointSequence = segments.peekFirst().sequence();
+			checkpointPosition = IngestLogSegment.HEADER_BYTES;
+		} finally {
+			appendLock.unlock();
+		}
+		writeCheckpoint();
+		// The mapping is released when the segment is garbage collected; the file can go before that.
+		try {
+			Files.deleteIfExists(head.path());
+		} catch (IOException e) {
+			log.warn("Unable to delete drained ingest log segment {}", head.path(), e);
+		}
+	}
+
+	private void recover() throws IOException {
+		Files.createDirectories(directory);
+		Path checkpoint = directory.resolve(CHECKPOINT);
+		checkpointSequence = 0;
+		checkpointPosition = IngestLogSegment.HEADER_BYTES;
+		if (Files.exists(checkpoint)) {
+			ByteBuffer stored = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+			checkpointSequence = stored.getLong();
+			checkpointPosition = stored.getInt();
+		}
+
+		TreeMap<Long, Path> found = new TreeMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.log")) {
+			for (Path file : files) {
+				Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+				if (matcher.matches()) {
+					found.put(Long.parseLong(matcher.group(1)), file);
+				}
+			}
+		}
+
+		segments.clear();
+		for (var entry : found.entrySet()) {
+			if (entry.getKey() < checkpointSequence) {
+				Files.delete(entry.getValue());
+				continue;
+			}
+			IngestLogSegment segment = IngestLogSegment.recover(entry.getValue(), entry.getKey());
+			IngestLogSegment previous = segments.peekLast();
+			if (previous != null) {
+				previous.seal();
+			}
+			segments.addLast(segment);
+		}
+		if (segments.isEmpty()) {
+			segments.addLast(IngestLogSegment.create(directory, checkpointSequence, segmentBytes));
+		}
+		if (segments.peekFirst().sequence() != checkpointSequence) {
+			checkpointSequence = segments.peekFirst().sequence();
+			checkpointPosition = IngestLogSegment.HEADER_BYTES;
+		}
+		checkpointPosition = Math.min(checkpointPosition, segments.peekFirst().writePosition());
+	}
+
+	private void writeCheckpoint() {
+		ByteBuffer stored = ByteBuffer.allocate(12).putLong(checkpointSequence).putInt(checkpointPosition);
+		Path target = directory.resolve(CHECKPOINT);
+		Path temp = directory.resolve(CHECKPOINT + ".tmp");
+		try {
+			Files.write(temp, stored.array(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// A stale checkpoint only means some records are replayed, which the insert tolerates.
+			log.warn("Unable to write ingest log checkpoint in {}", directory, e);
+		}
+	}
+
+	private boolean deadLetter(IngestRequest request, String reason) {
+		return deadLetter(objectMapper.createObjectNode()
+				.put("reason", reason)
+				.put("source", request.source())
+				.put("externalEventId", request.externalEventId())
+				.put("payload", Base64.getEncoder().encodeToString(request.payload())));
+	}
+
+	/**
+	 * Appends one line to the dead-letter file and syncs it, returning whether that worked.
+	 */
+	private boolean deadLetter(ObjectNode entry) {
+		entry.put("parkedAt", Instant.now().toString());
+		try {
+			byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+			Files.write(directory.resolve(DEAD_LETTER), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+					StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+			return true;
+		} catch (IOException e) {
+			log.warn("Unable to park ingest log record in {}", directory.resolve(DEAD_LETTER), e);
+			return false;
+		}
+	}
+
+	/**
+	 * Why the insert would refuse this webhook, or {@code null} if it will store it: keys longer than
+	 * their columns, NUL characters, which neither {@code varchar} nor {@code jsonb} can hold, bytes that
+	 * are not UTF-8, and anything {@code jsonb} does not accept as JSON.
+	 */
+	String rejectionReason(String source, String externalEventId, byte[] payload) {
+		if (!fitsKeyColumn(source) || !fitsKeyColumn(externalEventId)) {
+			return "Source and event ID must be at most " + MAX_KEY_CHARS + " characters without NUL";
+		}
+		try {
+			StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT)
+					.decode(ByteBuffer.wrap(payload));
+		} catch (CharacterCodingException e) {
+			return "Payload is not valid UTF-8";
+		}
+		try (JsonParser parser = jsonFactory.createParser(payload)) {
+			int depth = 0;
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				switch (token) {
+					case START_OBJECT, START_ARRAY -> depth++;
+					case END_OBJECT, END_ARRAY -> depth--;
+					case FIELD_NAME, VALUE_STRING -> {
+						if (!fitsJsonb(parser.getText())) {
+							return "Payload contains a string jsonb cannot store";
+						}
+					}
+					case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+						BigDecimal number = parser.getDecimalValue();
+						if (number.precision() - number.scale() > MAX_NUMERIC_INTEGER_DIGITS
+								|| number.scale() > MAX_NUMERIC_SCALE) {
+							return "Payload contains a number jsonb cannot store";
+						}
+					}
+					default -> {
+					}
+				}
+				if (depth == 0) {
+					return parser.nextToken() == null ? null : "Invalid JSON payload";
+				}
+			}
+			return "Invalid JSON payload";
+		} catch (IOException e) {
+			return "Invalid JSON payload";
+		}
+	}
+
+	private static boolean fitsKeyColumn(String key) {
+		return key.codePointCount(0, key.length()) <= MAX_KEY_CHARS && key.indexOf('\0') < 0;
+	}
+
+	/**
+	 * jsonb refuses NUL and unpaired surrogates. JSON can spell both as escapes, and Jackson decodes them
+	 * without complaint.
+	 */
+	private static boolean fitsJsonb(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\0') {
+				return false;
+			}
+			if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,246 @@
+package com.ansh.EventRelay.webhooks;
+
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestionResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Group commit for the ingest path. Concurrent requests are queued, and {@code flushers} threads each
+ * take up to {@code maxSize} of them, waiting at most {@code lingerMs} for the batch to fill, and write
+ * them with {@link WebhookIngestionService#ingestBatch(List)} in a single transaction. A caller is only
+ * released once the commit that holds its row has returned. If a batch fails as a whole, its requests
+ * are retried one by one so that a single bad payload only fails its own request.
+ *
+ * <p>When {@link WebhookIngestLog} is enabled, requests are appended to it instead and acknowledged
+ * once they are durable locally; the log then takes care of writing them to Postgres.
+ */
+@Component
+public class WebhookIngestionBatcher implements SmartLifecycle {
+	private static final Logger log = LoggerFactory.getLogger(WebhookIngestionBatcher.class);
+	private static final long IDLE_POLL_MS = 100;
+
+	private final WebhookIngestionService ingestionService;
+	private final RecentIngestKeys recentKeys;
+	private final WebhookIngestLog ingestLog;
+	private final boolean enabled;
+	private final int maxSize;
+	private final long lingerNanos;
+	private final int flushers;
+	private final Duration timeout;
+	private final BlockingQueue<PendingIngest> queue;
+
+	private volatile boolean running;
+	private ExecutorService executor;
+
+	public WebhookIngestionBatcher(
+			WebhookIngestionService ingestionService,
+			RecentIngestKeys recentKeys,
+			ObjectProvider<WebhookIngestLog> ingestLog,
+			@Value("${eventrelay.ingest.batch.enabled:true}") boolean enabled,
+			@Value("${eventrelay.ingest.batch.maxSize:100}") int maxSize,
+			@Value("${eventrelay.ingest.batch.lingerMs:2}") long lingerMs,
+			@Value("${eventrelay.ingest.batch.flushers:2}") int flushers,
+			@Value("${eventrelay.ingest.batch.queueCapacity:10000}") int queueCapacity,
+			@Value("${eventrelay.ingest.batch.timeoutMs:10000}") long timeoutMs
+	) {
+		if (maxSize < 1 || flushers < 1) {
+			throw new IllegalArgumentException("eventrelay.ingest.batch.maxSize and flushers must be at least 1");
+		}
+		this.ingestionService = ingestionService;
+		this.recentKeys = recentKeys;
+		this.ingestLog = ingestLog.getIfAvailable();
+		this.enabled = enabled;
+		this.maxSize = maxSize;
+		this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+		this.flushers = flushers;
+		this.timeout = Duration.ofMillis(timeoutMs);
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	/**
+	 * Ingests one webhook and returns once it is committed, or once it is in the ingest log when that
+	 * is enabled. In that case the result cannot tell whether the webhook is a duplicate. Keys this node has recently stored are
+	 * answered as duplicates straight away. Falls back to a transaction of its own when batching is
+	 * disabled or the batcher is not running.
+	 */
+	public IngestionResult ingest(String source, String externalEventId, byte[] payload) {
+		if (recentKeys.contains(source, externalEventId)) {
+			return IngestionResult.accepted(null, true);
+		}
+		IngestionResult result = submit(source, externalEventId, payload);
+		recentKeys.remember(source, externalEventId);
+		return result;
+	}
+
+	private IngestionResult submit(String source, String externalEventId, byte[] payload) {
+		if (ingestLog != null) {
+			ingestLog.append(source, externalEventId, payload);
+			return IngestionResult.accepted(null, false);
+		}
+		if (!enabled || !running) {
+			return ingestionService.ingest(source, externalEventId, payload);
+		}
+
+		PendingIngest pending = new PendingIngest(
+				new IngestRequest(source, externalEventId, payload), new CompletableFuture<>());
+		if (!queue.offer(pending)) {
+			throw new ServiceUnavailableException("Ingest queue is full");
+		}
+		if (!running && queue.remove(pending)) {
+			// Lost a race with stop(); the flushers may already be gone.
+			return ingestionService.ingest(source, externalEventId, payload);
+		}
+
+		try {
+			return pending.result().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new ServiceUnavailableException("Ingest did not commit within " + timeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ServiceUnavailableException("Interrupted while waiting for ingest");
+		}
+	}
+
+	@Override
+	public synchronized void start() {
+		if (!enabled || running || ingestLog != null) {
+			return;
+		}
+		executor = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("ingest-flusher-", 0).factory());
+		running = true;
+		for (int i = 0; i < flushers; i++) {
+			executor.submit(this::runFlusher);
+		}
+		log.info("Ingest batcher started flushers={} maxSize={} lingerMs={}",
+			flushers, maxSize, TimeUnit.NANOSECONDS.toMillis(lingerNanos));
+	}
+
+	/**
+	 * Stops accepting new work into the queue and lets the flushers drain what is already there.
+	 */
+	@Override
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				log.warn("Ingest batcher did not drain within {}", timeout);
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		// Stop after the web server so that in-flight requests can still be flushed.
+		return SmartLifecycle.DEFAULT_PHASE - 4096;
+	}
+
+	private void runFlusher() {
+		List<PendingIngest> batch = new ArrayList<>(maxSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingIngest first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				fill(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failAll(batch, new ServiceUnavailableException("Ingest batcher stopped"));
+				return;
+			}
+			flush(batch);
+			batch.clear();
+		}
+	}
+
+	private void fill(List<PendingIngest> batch) throws InterruptedException {
+		long deadline = System.nanoTime() + lingerNanos;
+		while (batch.size() < maxSize) {
+			queue.drainTo(batch, maxSize - batch.size());
+			long remaining = deadline - System.nanoTime();
+			if (batch.size() >= maxSize || remaining <= 0) {
+				return;
+			}
+			PendingIngest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				return;
+			}
+			batch.add(next);
+		}
+	}
+
+	private void flush(List<PendingIngest> batch) {
+		List<IngestRequest> requests = new ArrayList<>(batch.size());
+		for (PendingIngest pending : batch) {
+			requests.add(pending.request());
+		}
+
+		List<IngestionResult> results;
+		try {
+			results = ingestionService.ingestBatch(requests);
+		} catch (Exception ex) {
+			log.warn("Ingest batch of {} failed; retrying its requests one by one", batch.size(), ex);
+			flushIndividually(batch);
+			return;
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			batch.get(i).result().complete(results.get(i));
+		}
+	}
+
+	private void flushIndividually(List<PendingIngest> batch) {
+		for (PendingIngest pending : batch) {
+			IngestRequest request = pending.request();
+			try {
+				pending.result().complete(ingestionService.ingest(
+						request.source(), request.externalEventId(), request.payload()));
+			} catch (Exception ex) {
+				pending.result().completeExceptionally(ex);
+			}
+		}
+	}
+
+	private static void failAll(List<PendingIngest> batch, RuntimeException ex) {
+		for (PendingIngest pending : batch) {
+			pending.result().completeExceptionally(ex);
+		}
+	}
+
+	private record PendingIngest(IngestRequest request, CompletableFuture<IngestionResult> result) {
+	}
+}
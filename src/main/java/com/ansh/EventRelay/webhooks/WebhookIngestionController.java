@@ -1,9 +1,8 @@
 package com.ansh.EventRelay.webhooks;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import com.ansh.EventRelay.metrics.EventRelayMetrics;
+import com.ansh.EventRelay.metrics.EventRelayMetrics.IngestOutcome;
+import java.sql.SQLException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -23,18 +22,21 @@ public class WebhookIngestionController {
 	private static final Logger log = LoggerFactory.getLogger(WebhookIngestionController.class);
 	private final WebhookSecretsProperties secretsProperties;
 	private final SignatureVerifier signatureVerifier;
-	private final WebhookIngestionService ingestionService;
-	private final ObjectMapper objectMapper;
+	private final WebhookIngestionBatcher ingestionBatcher;
+	private final WebhookEventIdExtractor idExtractor;
+	private final EventRelayMetrics metrics;
 
 	public WebhookIngestionController(
 			WebhookSecretsProperties secretsProperties,
 			SignatureVerifier signatureVerifier,
-			WebhookIngestionService ingestionService,
-			ObjectMapper objectMapper) {
+			WebhookIngestionBatcher ingestionBatcher,
+			WebhookEventIdExtractor idExtractor,
+			EventRelayMetrics metrics) {
 		this.secretsProperties = secretsProperties;
 		this.signatureVerifier = signatureVerifier;
-		this.ingestionService = ingestionService;
-		this.objectMapper = objectMapper;
+		this.ingestionBatcher = ingestionBatcher;
+		this.idExtractor = idExtractor;
+		this.metrics = metrics;
 	}
 
 	@PostMapping(
@@ -46,47 +48,58 @@ public class WebhookIngestionController {
 			@RequestHeader(value = "X-Webhook-Signature", required = false) String signature,
 			@RequestBody byte[] body
 	) {
+		long startNanos = System.nanoTime();
 		String secret = secretsProperties.getSecretForSource(source);
-		if (!signatureVerifier.isValid(body, secret, signature)) {
-			throw new UnauthorizedException("Invalid signature");
-		}
+		// Only configured sources get their own time series; the path accepts any name.
+		String metricSource = secret != null ? source : EventRelayMetrics.UNKNOWN_SOURCE;
+		IngestOutcome outcome = IngestOutcome.REJECTED;
+		try {
+			long verifyStartNanos = System.nanoTime();
+			boolean valid = signatureVerifier.isValid(body, secret, signature);
+			metrics.recordSignatureVerify(metricSource, System.nanoTime() - verifyStartNanos);
+			if (!valid) {
+				throw new UnauthorizedException("Invalid signature");
+			}
 
-		String externalEventId = extractExternalEventId(body);
-		if (externalEventId == null || externalEventId.isBlank()) {
-			throw new BadRequestException("Missing or invalid event ID");
-		}
+			String externalEventId = idExtractor.extract(body);
+			if (externalEventId == null || externalEventId.isBlank()) {
+				throw new BadRequestException("Missing or invalid event ID");
+			}
 
-		try {
-			ingestionService.ingest(source, externalEventId, new String(body, StandardCharsets.UTF_8));
-			return ResponseEntity.status(HttpStatus.OK).build();
-		} catch (DataIntegrityViolationException e) {
-			log.warn("Duplicate event detected: source={}, externalEventId={}, message={}", 
-				source, externalEventId, e.getMessage());
-			return ResponseEntity.ok().build();
-		} catch (Exception e) {
-			Throwable cause = e.getCause();
-			while (cause != null) {
-				if (cause instanceof DataIntegrityViolationException) {
-					log.warn("Duplicate event detected (wrapped): source={}, externalEventId={}", 
-						source, externalEventId);
-					return ResponseEntity.ok().build();
+			WebhookIngestionService.IngestionResult result;
+			try {
+				result = ingestionBatcher.ingest(source, externalEventId, body);
+			} catch (DataIntegrityViolationException e) {
+				if (!isInvalidPayload(e)) {
+					throw e;
 				}
-				cause = cause.getCause();
+				throw new BadRequestException("Invalid JSON payload");
+			}
+			if (result.duplicate()) {
+				log.info("Duplicate event acknowledged: source={}, externalEventId={}", source, externalEventId);
 			}
+			outcome = result.duplicate() ? IngestOutcome.DUPLICATE : IngestOutcome.ACCEPTED;
+		} catch (UnauthorizedException | BadRequestException e) {
 			throw e;
+		} catch (RuntimeException e) {
+			outcome = IngestOutcome.UNAVAILABLE;
+			throw e;
+		} finally {
+			metrics.recordIngest(metricSource, outcome, System.nanoTime() - startNanos);
 		}
+		return ResponseEntity.status(HttpStatus.OK).build();
 	}
 
-	private String extractExternalEventId(byte[] body) {
-		try {
-			JsonNode root = objectMapper.readTree(body);
-			JsonNode idNode = root.get("id");
-			if (idNode == null || idNode.isNull()) {
-				return null;
+	/**
+	 * Only the id was parsed up front; Postgres rejects the rest if it is not valid UTF-8 JSON. That is
+	 * a data exception, SQLSTATE class {@code 22}. Any other integrity failure is ours and stays a 5xx.
+	 */
+	static boolean isInvalidPayload(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SQLException sql) {
+				return sql.getSQLState() != null && sql.getSQLState().startsWith("22");
 			}
-			return idNode.asText(null);
-		} catch (IOException e) {
-			return null;
 		}
+		return false;
 	}
 }
@@ -1,24 +1,127 @@
 package com.ansh.EventRelay.webhooks;
 
-import com.ansh.EventRelay.events.WebhookEvent;
 import com.ansh.EventRelay.events.WebhookEventRepository;
-import com.ansh.EventRelay.events.WebhookEventState;
+import com.fasterxml.jackson.core.JsonPointer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class WebhookIngestionService {
 	private final WebhookEventRepository webhookEventRepository;
+	private final boolean notifyWorkers;
+	private final Map<String, String> orderingPaths = new HashMap<>();
+	private final Set<String> orderedSources = new HashSet<>();
 
-	public WebhookIngestionService(WebhookEventRepository webhookEventRepository) {
+	public WebhookIngestionService(
+			WebhookEventRepository webhookEventRepository,
+			OrderingKeyProperties orderingKeys,
+			@Value("${eventrelay.ingest.notify:true}") boolean notifyWorkers
+	) {
 		this.webhookEventRepository = webhookEventRepository;
+		this.notifyWorkers = notifyWorkers;
+		orderingKeys.getKeys().forEach((source, key) -> {
+			if (OrderingKeyProperties.WHOLE_SOURCE.equals(key)) {
+				orderedSources.add(source);
+			} else {
+				orderingPaths.put(source, toPath(key));
+			}
+		});
 	}
 
+	/**
+	 * Ingests a single webhook in its own transaction. A duplicate is reported through
+	 * {@link IngestionResult#duplicate()} rather than an exception.
+	 */
 	@Transactional
-	public IngestionResult ingest(String source, String externalEventId, String rawPayloadJson) {
-		WebhookEvent event = new WebhookEvent(source, externalEventId, rawPayloadJson, WebhookEventState.RECEIVED);
-		WebhookEvent saved = webhookEventRepository.saveAndFlush(event);
-		return IngestionResult.accepted(saved.getId(), false);
+	public IngestionResult ingest(String source, String externalEventId, byte[] payload) {
+		return ingestBatch(List.of(new IngestRequest(source, externalEventId, payload))).getFirst();
+	}
+
+	/**
+	 * Ingests several webhooks in one transaction and one commit. Results are returned in request
+	 * order; duplicates, including repeats within the batch, come back with {@code duplicate} set and
+	 * no event id.
+	 */
+	@Transactional
+	public List<IngestionResult> ingestBatch(List<IngestRequest> requests) {
+		int size = requests.size();
+		UUID[] ids = new UUID[size];
+		String[] sources = new String[size];
+		String[] externalEventIds = new String[size];
+		byte[][] payloads = new byte[size][];
+		String[] orderingKeys = new String[size];
+		String[] paths = new String[size];
+		for (int i = 0; i < size; i++) {
+			IngestRequest request = requests.get(i);
+			ids[i] = UUID.randomUUID();
+			sources[i] = request.source();
+			externalEventIds[i] = request.externalEventId();
+			payloads[i] = request.payload();
+			orderingKeys[i] = orderingKeyFor(request.source());
+			paths[i] = orderingPathFor(request.source());
+		}
+
+		Set<UUID> inserted = new HashSet<>(webhookEventRepository.insertEventBatch(
+				ids, sources, externalEventIds, payloads, orderingKeys, paths));
+		if (notifyWorkers && !inserted.isEmpty()) {
+			webhookEventRepository.notifyEventsReady();
+		}
+
+		List<IngestionResult> results = new ArrayList<>(size);
+		for (UUID id : ids) {
+			results.add(inserted.contains(id) ? IngestionResult.accepted(id, false) : IngestionResult.accepted(null, true));
+		}
+		return results;
+	}
+
+	/**
+	 * The {@code orderingKeys} entry {@link WebhookEventRepository#insertEventBatch} expects for an event
+	 * of {@code source}: the source itself when the whole source is ordered, otherwise {@code null}.
+	 */
+	String orderingKeyFor(String source) {
+		return orderedSources.contains(source) ? source : null;
+	}
+
+	/**
+	 * The {@code orderingPaths} entry for an event of {@code source}, or {@code null} if it has none.
+	 */
+	String orderingPathFor(String source) {
+		return orderingPaths.get(source);
+	}
+
+	/**
+	 * Turns a JSON Pointer into the segment list {@link WebhookEventRepository#insertEventBatch} expects.
+	 */
+	private static String toPath(String pointer) {
+		JsonPointer remaining;
+		try {
+			remaining = JsonPointer.compile(pointer);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("eventrelay.webhook.ordering.keys must be a JSON Pointer or 'source': " + pointer, e);
+		}
+		if (remaining.matches()) {
+			throw new IllegalArgumentException("eventrelay.webhook.ordering.keys must not point at the whole payload");
+		}
+		List<String> segments = new ArrayList<>();
+		while (!remaining.matches()) {
+			segments.add(remaining.getMatchingProperty());
+			remaining = remaining.tail();
+		}
+		return String.join("\u001f", segments);
+	}
+
+	/**
+	 * {@code payload} is the request body exactly as received, UTF-8 encoded JSON.
+	 */
+	public record IngestRequest(String source, String externalEventId, byte[] payload) {
 	}
 
 	public record IngestionResult(java.util.UUID eventId, boolean duplicate) {
@@ -0,0 +1,200 @@
+package com.ansh.EventRelay.worker;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * One circuit breaker per source. {@code failureThreshold} consecutive destination failures open a
+ * source's breaker for {@code openMs}; while it is open the source is not claimed at all, and events
+ * of it that were already claimed are parked until the breaker may close again, without spending a
+ * retry. After {@code openMs} the breaker is half-open and lets {@code halfOpenProbes} events through:
+ * if all of them succeed it closes, and any failure opens it again. Failures that say nothing about
+ * the destination, such as an event it rejected, are reported with {@link #recordIgnored} and neither
+ * count nor reset.
+ *
+ * <p>Breakers are local to a node, so each node discovers an outage on its own.
+ */
+@Component
+public class CircuitBreakerRegistry {
+	private static final Logger log = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+
+	private final boolean enabled;
+	private final int failureThreshold;
+	private final Duration openDuration;
+	private final int halfOpenProbes;
+	private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+	public CircuitBreakerRegistry(
+			@Value("${eventrelay.worker.circuitBreaker.enabled:true}") boolean enabled,
+			@Value("${eventrelay.worker.circuitBreaker.failureThreshold:5}") int failureThreshold,
+			@Value("${eventrelay.worker.circuitBreaker.openMs:30000}") long openMs,
+			@Value("${eventrelay.worker.circuitBreaker.halfOpenProbes:1}") int halfOpenProbes
+	) {
+		if (failureThreshold < 1 || halfOpenProbes < 1) {
+			throw new IllegalArgumentException(
+					"eventrelay.worker.circuitBreaker.failureThreshold and halfOpenProbes must be at least 1");
+		}
+		this.enabled = enabled;
+		this.failureThreshold = failureThreshold;
+		this.openDuration = Duration.ofMillis(openMs);
+		this.halfOpenProbes = halfOpenProbes;
+	}
+
+	/**
+	 * Whether an event of {@code source} may be handled now. In the half-open state this takes one of
+	 * the probe permits.
+	 */
+	public boolean tryAcquire(String source, Instant now) {
+		if (!enabled) {
+			return true;
+		}
+		Breaker breaker = breakers.get(source);
+		return breaker == null || breaker.tryAcquire(now);
+	}
+
+	public void recordSuccess(String source) {
+		if (!enabled) {
+			return;
+		}
+		Breaker breaker = breakers.get(source);
+		if (breaker != null) {
+			breaker.recordSuccess(source);
+		}
+	}
+
+	/**
+	 * Reports an attempt that neither succeeded nor failed because of the destination. A probe permit it
+	 * took is handed back, so a half-open breaker goes on probing.
+	 */
+	public void recordIgnored(String source) {
+		if (!enabled) {
+			return;
+		}
+		Breaker breaker = breakers.get(source);
+		if (breaker != null) {
+			breaker.recordIgnored();
+		}
+	}
+
+	public void recordFailure(String source, Instant now) {
+		if (enabled) {
+			breakers.computeIfAbsent(source, key -> new Breaker()).recordFailure(source, now);
+		}
+	}
+
+	/**
+	 * When a parked event of {@code source} should be looked at again.
+	 */
+	public Instant parkedUntil(String source, Instant now) {
+		Breaker breaker = breakers.get(source);
+		return breaker != null ? breaker.parkedUntil(now) : now;
+	}
+
+	/**
+	 * How many events of {@code source} a claim may take: {@code Integer.MAX_VALUE} while the breaker
+	 * is closed, 0 while it is open and the remaining probe permits while it is half-open.
+	 */
+	public int claimAllowance(String source, Instant now) {
+		Breaker breaker = enabled ? breakers.get(source) : null;
+		return breaker != null ? breaker.claimAllowance(now) : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Sources whose breaker is not closed, for the claim to treat specially.
+	 */
+	public List<String> trippedSources() {
+		List<String> tripped = new ArrayList<>();
+		if (enabled) {
+			breakers.forEach((source, breaker) -> {
+				if (breaker.isTripped()) {
+					tripped.add(source);
+				}
+			});
+		}
+		return tripped;
+	}
+
+	private enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final class Breaker {
+		private State state = State.CLOSED;
+		private int consecutiveFailures;
+		private Instant openUntil = Instant.MIN;
+		private int probePermits;
+		private int probeSuccesses;
+
+		private synchronized boolean tryAcquire(Instant now) {
+			halfOpenIfDue(now);
+			return switch (state) {
+				case CLOSED -> true;
+				case OPEN -> false;
+				case HALF_OPEN -> {
+					if (probePermits == 0) {
+						yield false;
+					}
+					probePermits--;
+					yield true;
+				}
+			};
+		}
+
+		private synchronized void recordSuccess(String source) {
+			consecutiveFailures = 0;
+			if (state == State.HALF_OPEN && ++probeSuccesses >= halfOpenProbes) {
+				state = State.CLOSED;
+				log.info("circuit_breaker source={} state=CLOSED", source);
+			}
+		}
+
+		private synchronized void recordIgnored() {
+			if (state == State.HALF_OPEN && probePermits + probeSuccesses < halfOpenProbes) {
+				probePermits++;
+			}
+		}
+
+		private synchronized void recordFailure(String source, Instant now) {
+			consecutiveFailures++;
+			if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+				state = State.OPEN;
+				openUntil = now.plus(openDuration);
+				log.warn("circuit_breaker source={} state=OPEN consecutive_failures={} open_until={}",
+					source, consecutiveFailures, openUntil);
+			}
+		}
+
+		private synchronized Instant parkedUntil(Instant now) {
+			return state == State.OPEN && openUntil.isAfter(now) ? openUntil : now.plus(openDuration);
+		}
+
+		private synchronized int claimAllowance(Instant now) {
+			halfOpenIfDue(now);
+			return switch (state) {
+				case CLOSED -> Integer.MAX_VALUE;
+				case OPEN -> 0;
+				case HALF_OPEN -> probePermits;
+			};
+		}
+
+		private synchronized boolean isTripped() {
+			return state != State.CLOSED;
+		}
+
+		private void halfOpenIfDue(Instant now) {
+			if (state == State.OPEN && !now.isBefore(openUntil)) {
+				state = State.HALF_OPEN;
+				probePermits = halfOpenProbes;
+				probeSuccesses = 0;
+			}
+		}
+	}
+}
@@ -1,13 +1,18 @@
 package com.ansh.EventRelay.worker;
 
 import com.ansh.EventRelay.events.WebhookEvent;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "eventrelay.delivery.mode", havingValue = "log", matchIfMissing = true)
 public class DefaultWebhookEventHandler implements WebhookEventHandler {
 	private static final Logger log = LoggerFactory.getLogger(DefaultWebhookEventHandler.class);
+	// Payloads come back from jsonb, which writes a space after every colon.
+	private static final Pattern SIMULATE_FAILURE = Pattern.compile("\"simulate_failure\"\\s*:\\s*true");
 
 	@Override
 	public void handle(WebhookEvent event) {
@@ -15,7 +20,7 @@ public class DefaultWebhookEventHandler implements WebhookEventHandler {
 			event.getId(), event.getSource(), event.getExternalEventId(), event.getState());
 
 		String payload = event.getPayload();
-		if (payload != null && payload.contains("\"simulate_failure\":true")) {
+		if (payload != null && SIMULATE_FAILURE.matcher(payload).find()) {
 			throw new RuntimeException("Simulated handler failure");
 		}
 	}
@@ -0,0 +1,110 @@
+package com.ansh.EventRelay.worker;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of {@link HttpForwardingWebhookEventHandler}, which is used when
+ * {@code eventrelay.delivery.mode=http}. Destinations are configured per source, e.g.
+ * {@code eventrelay.delivery.sources.stripe.url=https://billing.internal/webhooks/stripe}; sources
+ * without an entry use {@code eventrelay.delivery.defaults.*}.
+ */
+@ConfigurationProperties(prefix = "eventrelay.delivery")
+public class DeliveryProperties {
+	/** {@code log} only logs events; {@code http} forwards them to their source's destination. */
+	private String mode = "log";
+	private HttpClient.Version version = HttpClient.Version.HTTP_2;
+	private Duration connectTimeout = Duration.ofSeconds(5);
+	/** Threads that complete deliveries; requests themselves do not hold a thread while in flight. */
+	private int threads = 2;
+	private Destination defaults = new Destination();
+	private Map<String, Destination> sources = new HashMap<>();
+
+	public String getMode() {
+		return mode;
+	}
+
+	public void setMode(String mode) {
+		this.mode = mode;
+	}
+
+	public HttpClient.Version getVersion() {
+		return version;
+	}
+
+	public void setVersion(HttpClient.Version version) {
+		this.version = version;
+	}
+
+	public Duration getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(Duration connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public Destination getDefaults() {
+		return defaults;
+	}
+
+	public void setDefaults(Destination defaults) {
+		this.defaults = defaults;
+	}
+
+	public Map<String, Destination> getSources() {
+		return sources;
+	}
+
+	public void setSources(Map<String, Destination> sources) {
+		this.sources = sources;
+	}
+
+	public Destination getDestinationForSource(String source) {
+		return sources.getOrDefault(source, defaults);
+	}
+
+	public static class Destination {
+		private URI url;
+		/** Time from sending the request until the response headers have arrived. */
+		private Duration requestTimeout = Duration.ofSeconds(10);
+		/** Extra headers sent with every delivery, e.g. an authorization token. */
+		private Map<String, String> headers = new HashMap<>();
+
+		public URI getUrl() {
+			return url;
+		}
+
+		public void setUrl(URI url) {
+			this.url = url;
+		}
+
+		public Duration getRequestTimeout() {
+			return requestTimeout;
+		}
+
+		public void setRequestTimeout(Duration requestTimeout) {
+			this.requestTimeout = requestTimeout;
+		}
+
+		public Map<String, String> getHeaders() {
+			return headers;
+		}
+
+		public void setHeaders(Map<String, String> headers) {
+			this.headers = headers;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.ansh.EventRelay.worker;
+
+/**
+ * Thrown by a {@link WebhookEventHandler} when the destination of a source could not be reached or is
+ * failing as a whole, rather than rejecting this particular event. Only these failures, together with
+ * I/O errors and timeouts, count towards the source's circuit breaker.
+ */
+public class DestinationUnavailableException extends RuntimeException {
+	public DestinationUnavailableException(String message) {
+		super(message);
+	}
+
+	public DestinationUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,103 @@
+package com.ansh.EventRelay.worker;
+
+import com.ansh.EventRelay.worker.RetryProperties.SourceOverride;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with decorrelated jitter. The un-jittered delay of retry {@code n} is
+ * {@code min(maxDelay, baseDelay * multiplier^(n-1))}; with jitter, the actual delay is drawn from
+ * {@code [baseDelay, min(maxDelay, 3 * that delay)]}, so events that failed together, e.g. during a
+ * downstream outage, come back spread over the whole window instead of in the same second.
+ *
+ * <p>The bounds of every retry are computed once per source at startup, so a failure only costs one
+ * array lookup and one random draw. A {@code Retry-After} reported by the handler replaces the
+ * schedule; jitter of up to that delay again, but at most {@code baseDelay}, is added on top so that
+ * events told the same time do not all return at once.
+ *
+ * <p>Registered by {@link RetryPolicyAutoConfiguration}.
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+	private final Schedule defaults;
+	private final Map<String, Schedule> sources = new HashMap<>();
+
+	public ExponentialBackoffRetryPolicy(RetryProperties properties) {
+		this.defaults = new Schedule(properties.getMax(), properties.getBaseDelay(), properties.getMaxDelay(),
+				properties.getMultiplier(), properties.isJitter());
+		properties.getSources().forEach((source, override) -> sources.put(source, schedule(properties, override)));
+	}
+
+	@Override
+	public int getMaxRetries(String source) {
+		return scheduleFor(source).maxRetries;
+	}
+
+	@Override
+	public Instant computeNextRetryAt(String source, int nextRetryCount, Instant now, Duration retryAfter) {
+		Schedule schedule = scheduleFor(source);
+		return now.plusMillis(retryAfter != null
+				? schedule.retryAfterMillis(retryAfter)
+				: schedule.delayMillis(nextRetryCount));
+	}
+
+	private Schedule scheduleFor(String source) {
+		return sources.getOrDefault(source, defaults);
+	}
+
+	private static Schedule schedule(RetryProperties properties, SourceOverride override) {
+		return new Schedule(
+				override.getMax() != null ? override.getMax() : properties.getMax(),
+				override.getBaseDelay() != null ? override.getBaseDelay() : properties.getBaseDelay(),
+				override.getMaxDelay() != null ? override.getMaxDelay() : properties.getMaxDelay(),
+				override.getMultiplier() != null ? override.getMultiplier() : properties.getMultiplier(),
+				properties.isJitter());
+	}
+
+	/**
+	 * Precomputed delay bounds, indexed by retry count; retries past the end use the last entry.
+	 */
+	private static final class Schedule {
+		private final int maxRetries;
+		private final long baseMillis;
+		private final long maxMillis;
+		private final long[] lowerMillis;
+		private final long[] upperMillis;
+
+		private Schedule(int maxRetries, Duration baseDelay, Duration maxDelay, double multiplier, boolean jitter) {
+			if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0 || multiplier < 1) {
+				throw new IllegalArgumentException(
+						"eventrelay.retry needs 0 <= baseDelay <= maxDelay and multiplier >= 1");
+			}
+			this.maxRetries = maxRetries;
+			this.baseMillis = baseDelay.toMillis();
+			this.maxMillis = maxDelay.toMillis();
+
+			int size = Math.max(1, maxRetries);
+			lowerMillis = new long[size];
+			upperMillis = new long[size];
+			double delay = baseMillis;
+			for (int i = 0; i < size; i++) {
+				long exponential = (long) Math.min(maxMillis, delay);
+				lowerMillis[i] = jitter ? baseMillis : exponential;
+				upperMillis[i] = jitter ? (long) Math.min(maxMillis, 3d * exponential) : exponential;
+				delay *= multiplier;
+			}
+		}
+
+		private long delayMillis(int retryCount) {
+			int i = Math.min(Math.max(retryCount, 1), lowerMillis.length) - 1;
+			long lower = lowerMillis[i];
+			long upper = upperMillis[i];
+			return lower == upper ? lower : ThreadLocalRandom.current().nextLong(lower, upper + 1);
+		}
+
+		private long retryAfterMillis(Duration retryAfter) {
+			long requested = Math.min(maxMillis, Math.max(0, retryAfter.toMillis()));
+			long spread = Math.min(baseMillis, requested);
+			return spread == 0 ? requested : requested + ThreadLocalRandom.current().nextLong(spread + 1);
+		}
+	}
+}
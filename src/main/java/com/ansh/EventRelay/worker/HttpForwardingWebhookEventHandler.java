@@ -0,0 +1,147 @@
+package com.ansh.EventRelay.worker;
+
+import com.ansh.EventRelay.events.WebhookEvent;
+import com.ansh.EventRelay.worker.DeliveryProperties.Destination;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards every event as a {@code POST} of its payload to the destination configured for its
+ * source in {@link DeliveryProperties}. All deliveries share one {@link HttpClient}, which keeps a
+ * pool of connections per host and, with HTTP/2, multiplexes concurrent deliveries to the same host
+ * over one connection. Requests are sent asynchronously, so a worker thread starts a whole batch
+ * and a few client threads complete the responses.
+ *
+ * <p>A 2xx response is a success. 429, and 503 with a {@code Retry-After}, are retried after it
+ * through {@link RetryableHandlerException}. Any other 5xx is a {@link DestinationUnavailableException};
+ * it counts towards the source's circuit breaker like a timeout or a connection error. Any other
+ * status is a regular failure of the event. The event id is sent as {@code Idempotency-Key}, so a
+ * destination can drop the duplicate when a delivery is retried after its response was lost.
+ *
+ * <p>Only created with {@code eventrelay.delivery.mode=http}, in which case
+ * {@link DefaultWebhookEventHandler} is not.
+ */
+@Component
+@ConditionalOnProperty(name = "eventrelay.delivery.mode", havingValue = "http")
+public class HttpForwardingWebhookEventHandler implements WebhookEventHandler, DisposableBean {
+	private static final Logger log = LoggerFactory.getLogger(HttpForwardingWebhookEventHandler.class);
+
+	private final DeliveryProperties properties;
+	private final ExecutorService executor;
+	private final HttpClient client;
+
+	public HttpForwardingWebhookEventHandler(DeliveryProperties properties) {
+		this.properties = properties;
+		this.executor = Executors.newFixedThreadPool(properties.getThreads(),
+				Thread.ofPlatform().name("delivery-", 0).daemon(true).factory());
+		this.client = HttpClient.newBuilder()
+				.version(properties.getVersion())
+				.connectTimeout(properties.getConnectTimeout())
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.executor(executor)
+				.build();
+		log.info("HTTP delivery started version={} threads={} sources={}",
+			properties.getVersion(), properties.getThreads(), properties.getSources().keySet());
+	}
+
+	@Override
+	public void handle(WebhookEvent event) {
+		try {
+			handleAsync(event).join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw ex;
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> handleAsync(WebhookEvent event) {
+		Destination destination = properties.getDestinationForSource(event.getSource());
+		if (destination.getUrl() == null) {
+			return CompletableFuture.failedFuture(
+					new IllegalStateException("No delivery url configured for source " + event.getSource()));
+		}
+
+		HttpRequest.Builder request = HttpRequest.newBuilder(destination.getUrl())
+				.timeout(destination.getRequestTimeout())
+				.header("Content-Type", "application/json")
+				.header("Idempotency-Key", String.valueOf(event.getId()))
+				.header("X-EventRelay-Source", event.getSource())
+				.header("X-EventRelay-Event-Id", event.getExternalEventId())
+				.POST(HttpRequest.BodyPublishers.ofString(
+						event.getPayload() != null ? event.getPayload() : "", StandardCharsets.UTF_8));
+		destination.getHeaders().forEach(request::header);
+
+		return client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+				.thenAccept(response -> checkStatus(event, response))
+				.exceptionallyCompose(ex -> CompletableFuture.failedFuture(unwrap(ex)));
+	}
+
+	private static void checkStatus(WebhookEvent event, HttpResponse<?> response) {
+		int status = response.statusCode();
+		if (status >= 200 && status < 300) {
+			return;
+		}
+		String message = "Delivery of event " + event.getId() + " to " + response.uri() + " returned " + status;
+		Duration retryAfter = retryAfter(response.headers());
+		if (status == 429 || (status == 503 && retryAfter != null)) {
+			throw new RetryableHandlerException(message, retryAfter);
+		}
+		if (status >= 500) {
+			throw new DestinationUnavailableException(message);
+		}
+		throw new IllegalStateException(message);
+	}
+
+	/**
+	 * The {@code Retry-After} of a response, in either of its forms (seconds or an HTTP date), or
+	 * {@code null} when it is absent or cannot be read.
+	 */
+	static Duration retryAfter(HttpHeaders headers) {
+		String value = headers.firstValue("Retry-After").orElse(null);
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		try {
+			return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+		} catch (NumberFormatException ignored) {
+			// Not a number of seconds; try an HTTP date.
+		}
+		try {
+			Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+			Duration delay = Duration.between(Instant.now(), at);
+			return delay.isNegative() ? Duration.ZERO : delay;
+		} catch (DateTimeParseException ignored) {
+			return null;
+		}
+	}
+
+	private static Throwable unwrap(Throwable ex) {
+		return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+	}
+
+	@Override
+	public void destroy() {
+		client.shutdownNow();
+		executor.shutdownNow();
+	}
+}
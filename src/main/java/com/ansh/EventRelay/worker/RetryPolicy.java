@@ -2,29 +2,22 @@ package com.ansh.EventRelay.worker;
 
 import java.time.Duration;
 import java.time.Instant;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Component;
 
-@Component
-public class RetryPolicy {
-	private final int maxRetries;
+/**
+ * Decides when a failed event is retried and when it gives up. The default is
+ * {@link ExponentialBackoffRetryPolicy}; another strategy can be plugged in by defining any
+ * {@code RetryPolicy} bean, which the default then backs off for.
+ */
+public interface RetryPolicy {
+	/**
+	 * Number of retries an event of {@code source} gets before it is dead-lettered.
+	 */
+	int getMaxRetries(String source);
 
-	public RetryPolicy(@Value("${eventrelay.retry.max:5}") int maxRetries) {
-		this.maxRetries = maxRetries;
-	}
-
-	public int getMaxRetries() {
-		return maxRetries;
-	}
-
-	public Instant computeNextRetryAt(int nextRetryCount, Instant now) {
-		Duration delay = switch (nextRetryCount) {
-			case 1 -> Duration.ofSeconds(30);
-			case 2 -> Duration.ofMinutes(2);
-			case 3 -> Duration.ofMinutes(10);
-			case 4 -> Duration.ofMinutes(30);
-			default -> Duration.ofHours(2);
-		};
-		return now.plus(delay);
-	}
+	/**
+	 * Time of the {@code nextRetryCount}-th retry of an event of {@code source} that failed at
+	 * {@code now}. {@code retryAfter} is the delay the handler asked for through
+	 * {@link RetryableHandlerException}, or {@code null}.
+	 */
+	Instant computeNextRetryAt(String source, int nextRetryCount, Instant now, Duration retryAfter);
 }
@@ -0,0 +1,19 @@
+package com.ansh.EventRelay.worker;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers {@link ExponentialBackoffRetryPolicy} unless the application defines its own
+ * {@link RetryPolicy}. Listed as an auto-configuration rather than scanned, so the condition is
+ * evaluated after every application bean is known, whatever package it lives in.
+ */
+@AutoConfiguration
+public class RetryPolicyAutoConfiguration {
+	@Bean
+	@ConditionalOnMissingBean(RetryPolicy.class)
+	public ExponentialBackoffRetryPolicy retryPolicy(RetryProperties properties) {
+		return new ExponentialBackoffRetryPolicy(properties);
+	}
+}
@@ -0,0 +1,107 @@
+package com.ansh.EventRelay.worker;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of {@link ExponentialBackoffRetryPolicy}. Every setting can be overridden per source, e.g.
+ * {@code eventrelay.retry.sources.stripe.maxDelay=30m}; unset overrides fall back to the top level.
+ */
+@ConfigurationProperties(prefix = "eventrelay.retry")
+public class RetryProperties {
+	private int max = 5;
+	private Duration baseDelay = Duration.ofSeconds(30);
+	private Duration maxDelay = Duration.ofHours(2);
+	private double multiplier = 4;
+	private boolean jitter = true;
+	private Map<String, SourceOverride> sources = new HashMap<>();
+
+	public int getMax() {
+		return max;
+	}
+
+	public void setMax(int max) {
+		this.max = max;
+	}
+
+	public Duration getBaseDelay() {
+		return baseDelay;
+	}
+
+	public void setBaseDelay(Duration baseDelay) {
+		this.baseDelay = baseDelay;
+	}
+
+	public Duration getMaxDelay() {
+		return maxDelay;
+	}
+
+	public void setMaxDelay(Duration maxDelay) {
+		this.maxDelay = maxDelay;
+	}
+
+	public double getMultiplier() {
+		return multiplier;
+	}
+
+	public void setMultiplier(double multiplier) {
+		this.multiplier = multiplier;
+	}
+
+	public boolean isJitter() {
+		return jitter;
+	}
+
+	public void setJitter(boolean jitter) {
+		this.jitter = jitter;
+	}
+
+	public Map<String, SourceOverride> getSources() {
+		return sources;
+	}
+
+	public void setSources(Map<String, SourceOverride> sources) {
+		this.sources = sources;
+	}
+
+	public static class SourceOverride {
+		private Integer max;
+		private Duration baseDelay;
+		private Duration maxDelay;
+		private Double multiplier;
+
+		public Integer getMax() {
+			return max;
+		}
+
+		public void setMax(Integer max) {
+			this.max = max;
+		}
+
+		public Duration getBaseDelay() {
+			return baseDelay;
+		}
+
+		public void setBaseDelay(Duration baseDelay) {
+			this.baseDelay = baseDelay;
+		}
+
+		public Duration getMaxDelay() {
+			return maxDelay;
+		}
+
+		public void setMaxDelay(Duration maxDelay) {
+			this.maxDelay = maxDelay;
+		}
+
+		public Double getMultiplier() {
+			return multiplier;
+		}
+
+		public void setMultiplier(Double multiplier) {
+			this.multiplier = multiplier;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.ansh.EventRelay.worker;
+
+import java.time.Duration;
+
+/**
+ * Thrown by a {@link WebhookEventHandler} that knows when the event can be retried, typically from a
+ * downstream {@code Retry-After} header. The retry is scheduled after {@code retryAfter} instead of
+ * the regular backoff; the attempt still counts towards the retry limit.
+ */
+public class RetryableHandlerException extends RuntimeException {
+	private final Duration retryAfter;
+
+	public RetryableHandlerException(String message, Duration retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	public RetryableHandlerException(String message, Duration retryAfter, Throwable cause) {
+		super(message, cause);
+		this.retryAfter = retryAfter;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
@@ -0,0 +1,197 @@
+package com.ansh.EventRelay.worker;
+
+import com.ansh.EventRelay.events.WebhookEvent;
+import com.ansh.EventRelay.events.WebhookEventRepository;
+import com.ansh.EventRelay.webhooks.SourceLimitsProperties;
+import com.ansh.EventRelay.webhooks.SourceLimitsProperties.SourceLimit;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which events a worker claims. In {@code fair} mode (the default) a batch is shared between
+ * sources by weighted turns and each source is held to its {@link SourceLimitsProperties} limits, so a
+ * backlog in one source does not delay the others; {@code fifo} claims strictly by eligibility time.
+ *
+ * <p>{@code maxInFlight} is checked against committed {@code PROCESSING} rows, so claims running at
+ * the same moment on different workers can each take the remaining headroom. Rate limits are token
+ * buckets on this node: a claim reserves each limited source's available tokens and gives back what it
+ * did not use. A source with the default limits gets a bucket the first time it is claimed.
+ *
+ * <p>Sources whose {@link CircuitBreakerRegistry circuit breaker} is open are not claimed, and
+ * half-open ones only up to their probe permits ({@code fifo} mode only skips open ones).
+ */
+@Component
+public class SourceScheduler {
+	private final WebhookEventRepository repository;
+	private final SourceLimitsProperties limits;
+	private final CircuitBreakerRegistry circuitBreakers;
+	private final boolean fair;
+	private final Map<String, RateBucket> buckets = new HashMap<>();
+	private volatile String cursor = "";
+
+	public SourceScheduler(
+			WebhookEventRepository repository,
+			SourceLimitsProperties limits,
+			CircuitBreakerRegistry circuitBreakers,
+			@Value("${eventrelay.worker.scheduling:fair}") String mode
+	) {
+		this.repository = repository;
+		this.limits = limits;
+		this.circuitBreakers = circuitBreakers;
+		this.fair = switch (mode) {
+			case "fair" -> true;
+			case "fifo" -> false;
+			default -> throw new IllegalArgumentException("eventrelay.worker.scheduling must be fair or fifo: " + mode);
+		};
+	}
+
+	/**
+	 * Claims up to {@code limit} eligible events under a lease owned by {@code leaseOwner}.
+	 */
+	public List<WebhookEvent> claim(int limit, String leaseOwner, Duration leaseDuration) {
+		if (!fair) {
+			Instant now = Instant.now();
+			List<String> paused = circuitBreakers.trippedSources().stream()
+					.filter(source -> circuitBreakers.claimAllowance(source, now) == 0)
+					.toList();
+			return repository.claimNextEligibleEvents(
+					limit, leaseOwner, leaseDuration.toSeconds(), paused.toArray(String[]::new));
+		}
+
+		SourceLimit defaults = limits.getDefaults();
+		Reservation reservation = reserve(limit);
+		List<WebhookEvent> claimed = List.of();
+		try {
+			claimed = repository.claimNextEligibleEventsFairly(
+					limit, leaseOwner, leaseDuration.toSeconds(), cursor,
+					reservation.sources(), reservation.allowances(), reservation.maxInFlight(), reservation.weights(),
+					limit, Math.max(0, defaults.getMaxInFlight()), Math.max(1, defaults.getWeight()));
+		} finally {
+			settle(reservation, claimed);
+		}
+		advanceCursor(claimed);
+		return claimed;
+	}
+
+	private synchronized Reservation reserve(int limit) {
+		Set<String> listed = new LinkedHashSet<>(limits.getSources().keySet());
+		listed.addAll(buckets.keySet());
+		listed.addAll(circuitBreakers.trippedSources());
+		Instant wallClock = Instant.now();
+
+		int size = listed.size();
+		Reservation reservation = new Reservation(
+				new String[size], new Integer[size], new Integer[size], new Integer[size]);
+		long now = System.nanoTime();
+		int i = 0;
+		for (String source : listed) {
+			SourceLimit sourceLimit = limits.getLimitForSource(source);
+			int allowance = limit;
+			if (sourceLimit.getRatePerSecond() > 0) {
+				RateBucket bucket = buckets.computeIfAbsent(source, key -> new RateBucket(sourceLimit.getRatePerSecond(), now));
+				allowance = bucket.take(limit, now);
+			}
+			reservation.sources()[i] = source;
+			reservation.allowances()[i] = Math.min(allowance, circuitBreakers.claimAllowance(source, wallClock));
+			reservation.maxInFlight()[i] = Math.max(0, sourceLimit.getMaxInFlight());
+			reservation.weights()[i] = Math.max(1, sourceLimit.getWeight());
+			i++;
+		}
+		return reservation;
+	}
+
+	/**
+	 * Gives back the tokens a claim reserved but did not use, and charges sources claimed for the first
+	 * time that have a default rate limit.
+	 */
+	private synchronized void settle(Reservation reservation, List<WebhookEvent> claimed) {
+		Map<String, Integer> counts = new HashMap<>();
+		for (WebhookEvent event : claimed) {
+			counts.merge(event.getSource(), 1, Integer::sum);
+		}
+
+		long now = System.nanoTime();
+		for (int i = 0; i < reservation.sources().length; i++) {
+			String source = reservation.sources()[i];
+			RateBucket bucket = buckets.get(source);
+			if (bucket != null) {
+				bucket.giveBack(reservation.allowances()[i] - counts.getOrDefault(source, 0));
+			}
+			counts.remove(source);
+		}
+		double defaultRate = limits.getDefaults().getRatePerSecond();
+		if (defaultRate > 0) {
+			for (Map.Entry<String, Integer> unlisted : counts.entrySet()) {
+				buckets.computeIfAbsent(unlisted.getKey(), key -> new RateBucket(defaultRate, now))
+						.giveBack(-unlisted.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Moves the tie-break cursor to the last source this claim served, so the next claim starts with
+	 * the source after it even when the batch is smaller than the number of sources.
+	 */
+	private void advanceCursor(List<WebhookEvent> claimed) {
+		String current = cursor;
+		String last = null;
+		for (WebhookEvent event : claimed) {
+			String source = event.getSource();
+			if (last == null || wrappedCompare(source, last, current) > 0) {
+				last = source;
+			}
+		}
+		if (last != null) {
+			cursor = last;
+		}
+	}
+
+	private static int wrappedCompare(String a, String b, String cursor) {
+		boolean aWrapped = a.compareTo(cursor) <= 0;
+		boolean bWrapped = b.compareTo(cursor) <= 0;
+		if (aWrapped != bWrapped) {
+			return aWrapped ? 1 : -1;
+		}
+		return a.compareTo(b);
+	}
+
+	private record Reservation(String[] sources, Integer[] allowances, Integer[] maxInFlight, Integer[] weights) {
+	}
+
+	/**
+	 * Token bucket holding up to one second of tokens. Tokens may go negative when a source was
+	 * claimed before it had a bucket; it then waits until the debt is refilled.
+	 */
+	private static final class RateBucket {
+		private final double ratePerNano;
+		private final double capacity;
+		private double tokens;
+		private long refilledAt;
+
+		private RateBucket(double ratePerSecond, long now) {
+			this.ratePerNano = ratePerSecond / 1_000_000_000d;
+			this.capacity = Math.max(1, ratePerSecond);
+			this.tokens = capacity;
+			this.refilledAt = now;
+		}
+
+		private int take(int max, long now) {
+			tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+			refilledAt = now;
+			int taken = (int) Math.max(0, Math.min(max, Math.floor(tokens)));
+			tokens -= taken;
+			return taken;
+		}
+
+		private void giveBack(int unused) {
+			tokens = Math.min(capacity, tokens + unused);
+		}
+	}
+}
@@ -1,7 +1,24 @@
 package com.ansh.EventRelay.worker;
 
 import com.ansh.EventRelay.events.WebhookEvent;
+import java.util.concurrent.CompletableFuture;
 
 public interface WebhookEventHandler {
 	void handle(WebhookEvent event);
+
+	/**
+	 * Starts handling {@code event} and completes the returned future with its outcome.
+	 * {@link WebhookEventProcessor} starts every event of a batch this way before waiting for any
+	 * of them, so handlers that do I/O without blocking, like {@link HttpForwardingWebhookEventHandler},
+	 * keep a whole batch in flight on one worker thread. The default runs {@link #handle} on the
+	 * calling thread.
+	 */
+	default CompletableFuture<Void> handleAsync(WebhookEvent event) {
+		try {
+			handle(event);
+			return CompletableFuture.completedFuture(null);
+		} catch (RuntimeException ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
+	}
 }
@@ -0,0 +1,62 @@
+package com.ansh.EventRelay.worker;
+
+import com.ansh.EventRelay.events.WebhookEventRepository;
+import com.ansh.EventRelay.metrics.EventRelayMetrics;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class WebhookEventLeaseReaper {
+	private static final Logger log = LoggerFactory.getLogger(WebhookEventLeaseReaper.class);
+
+	private final WebhookEventRepository repository;
+	private final RetryPolicy retryPolicy;
+	private final EventRelayMetrics metrics;
+	private final int batchSize;
+
+	public WebhookEventLeaseReaper(
+			WebhookEventRepository repository,
+			RetryPolicy retryPolicy,
+			EventRelayMetrics metrics,
+			@Value("${eventrelay.worker.leaseReaperBatchSize:500}") int batchSize
+	) {
+		this.repository = repository;
+		this.retryPolicy = retryPolicy;
+		this.metrics = metrics;
+		this.batchSize = batchSize;
+	}
+
+	@Scheduled(fixedDelayString = "${eventrelay.worker.leaseReaperDelayMs:30000}")
+	public void tick() {
+		int requeued = requeueExpiredLeases();
+		if (requeued > 0) {
+			log.warn("Requeued {} event(s) with an expired lease", requeued);
+		}
+	}
+
+	/**
+	 * Requeues every expired lease, looking up the retry limit of each affected source first.
+	 */
+	public int requeueExpiredLeases() {
+		int total = 0;
+		int requeued;
+		do {
+			List<String> sources = repository.findSourcesWithExpiredLeases();
+			if (sources.isEmpty()) {
+				break;
+			}
+			Integer[] maxRetries = new Integer[sources.size()];
+			for (int i = 0; i < maxRetries.length; i++) {
+				maxRetries[i] = retryPolicy.getMaxRetries(sources.get(i));
+			}
+			requeued = repository.requeueExpiredLeases(sources.toArray(String[]::new), maxRetries, batchSize);
+			total += requeued;
+			metrics.recordLeasesExpired(requeued);
+		} while (requeued == batchSize);
+		return total;
+	}
+}
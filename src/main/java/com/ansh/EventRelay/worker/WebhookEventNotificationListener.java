@@ -0,0 +1,134 @@
+package com.ansh.EventRelay.worker;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds one dedicated, non-pooled connection that {@code LISTEN}s on {@link #CHANNEL} and wakes the
+ * worker pool whenever an ingest transaction commits. Polling stays in place as the fallback for
+ * retries that become due through {@code next_retry_at} and for notifications missed while reconnecting.
+ */
+@Component
+@ConditionalOnExpression("'${eventrelay.worker.engine:pool}' == 'pool' and ${eventrelay.worker.notify.enabled:true}")
+public class WebhookEventNotificationListener implements SmartLifecycle {
+	public static final String CHANNEL = "webhook_events_ready";
+
+	private static final Logger log = LoggerFactory.getLogger(WebhookEventNotificationListener.class);
+
+	private final ObjectProvider<DataSourceProperties> dataSourceProperties;
+	private final WorkerWakeup wakeup;
+	private final Duration pollTimeout;
+	private final Duration reconnectDelay;
+
+	private volatile boolean running;
+	private volatile Connection connection;
+	private Thread thread;
+
+	public WebhookEventNotificationListener(
+			ObjectProvider<DataSourceProperties> dataSourceProperties,
+			WorkerWakeup wakeup,
+			@Value("${eventrelay.worker.notify.pollTimeoutMs:500}") long pollTimeoutMs,
+			@Value("${eventrelay.worker.notify.reconnectDelayMs:5000}") long reconnectDelayMs
+	) {
+		this.dataSourceProperties = dataSourceProperties;
+		this.wakeup = wakeup;
+		this.pollTimeout = Duration.ofMillis(pollTimeoutMs);
+		this.reconnectDelay = Duration.ofMillis(reconnectDelayMs);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		DataSourceProperties properties = dataSourceProperties.getIfAvailable();
+		if (properties == null) {
+			log.info("No datasource configured; LISTEN/NOTIFY wakeups disabled");
+			return;
+		}
+		running = true;
+		thread = Thread.ofPlatform()
+				.name("event-notify-listener")
+				.daemon()
+				.start(() -> listenLoop(properties));
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		closeQuietly(connection);
+		try {
+			thread.join(pollTimeout.multipliedBy(2).toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void listenLoop(DataSourceProperties properties) {
+		while (running) {
+			try (Connection conn = DriverManager.getConnection(
+					properties.determineUrl(), properties.determineUsername(), properties.determinePassword())) {
+				connection = conn;
+				try (Statement statement = conn.createStatement()) {
+					statement.execute("listen " + CHANNEL);
+				}
+				log.info("Listening for new events on channel {}", CHANNEL);
+				// Anything committed while we were not listening is only visible to a poll.
+				wakeup.signal();
+
+				PGConnection pgConnection = conn.unwrap(PGConnection.class);
+				while (running) {
+					PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+					if (notifications != null && notifications.length > 0) {
+						wakeup.signal();
+					}
+				}
+			} catch (SQLException e) {
+				if (!running) {
+					return;
+				}
+				log.warn("Notification listener lost its connection; reconnecting in {}", reconnectDelay, e);
+				try {
+					Thread.sleep(reconnectDelay);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			} finally {
+				connection = null;
+			}
+		}
+	}
+
+	private static void closeQuietly(Connection conn) {
+		if (conn == null) {
+			return;
+		}
+		try {
+			conn.close();
+		} catch (SQLException ignored) {
+			// the listen loop notices the closed connection and exits
+		}
+	}
+}
@@ -1,75 +1,235 @@
 package com.ansh.EventRelay.worker;
 
+import com.ansh.EventRelay.events.StoredPayload;
 import com.ansh.EventRelay.events.WebhookEvent;
 import com.ansh.EventRelay.events.WebhookEventRepository;
+import com.ansh.EventRelay.metrics.EventRelayMetrics;
+import com.ansh.EventRelay.metrics.EventRelayMetrics.Transition;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 @Component
 public class WebhookEventProcessor {
 	private static final Logger log = LoggerFactory.getLogger(WebhookEventProcessor.class);
+	private static final Comparator<WebhookEvent> CLAIM_ORDER = Comparator
+			.comparing((WebhookEvent event) -> event.getNextRetryAt() != null ? event.getNextRetryAt() : event.getCreatedAt())
+			.thenComparing(WebhookEvent::getId);
 
 	private final WebhookEventRepository repository;
 	private final WebhookEventHandler handler;
 	private final RetryPolicy retryPolicy;
+	private final SourceScheduler scheduler;
+	private final CircuitBreakerRegistry circuitBreakers;
+	private final EventRelayMetrics metrics;
+	private final String instanceId;
+	private final Duration leaseDuration;
 
 	public WebhookEventProcessor(
 			WebhookEventRepository repository,
 			WebhookEventHandler handler,
-			RetryPolicy retryPolicy
+			RetryPolicy retryPolicy,
+			SourceScheduler scheduler,
+			CircuitBreakerRegistry circuitBreakers,
+			EventRelayMetrics metrics,
+			@Value("${eventrelay.worker.instanceId:${random.uuid}}") String instanceId,
+			@Value("${eventrelay.worker.leaseSeconds:300}") long leaseSeconds
 	) {
 		this.repository = repository;
 		this.handler = handler;
 		this.retryPolicy = retryPolicy;
+		this.scheduler = scheduler;
+		this.circuitBreakers = circuitBreakers;
+		this.metrics = metrics;
+		this.instanceId = instanceId;
+		this.leaseDuration = Duration.ofSeconds(leaseSeconds);
 	}
 
-	@Transactional
 	public boolean processNextEligibleEvent() {
-		List<WebhookEvent> claimed = repository.claimNextEligibleEvents(1);
+		return processEligibleBatch(1) > 0;
+	}
+
+	/**
+	 * Claims up to {@code batchSize} eligible events under a lease through {@link SourceScheduler},
+	 * runs their handlers without a transaction or pooled connection held, and then writes every
+	 * outcome back with one conditional UPDATE. Every handler is started through
+	 * {@link WebhookEventHandler#handleAsync} before the first outcome is awaited, so asynchronous
+	 * handlers overlap the deliveries of a batch. The lease has to cover the whole batch; events whose
+	 * lease expires are requeued by {@link WebhookEventLeaseReaper}. Events whose source's circuit
+	 * breaker opened in the meantime are parked rather than handled; see {@link CircuitBreakerRegistry}.
+	 */
+	public int processEligibleBatch(int batchSize) {
+		String leaseOwner = instanceId + ":" + UUID.randomUUID();
+		long claimStartNanos = System.nanoTime();
+		List<WebhookEvent> claimed = new ArrayList<>(scheduler.claim(batchSize, leaseOwner, leaseDuration));
+		metrics.recordClaim(claimed.size(), System.nanoTime() - claimStartNanos);
 		if (claimed.isEmpty()) {
-			return false;
+			return 0;
 		}
+		claimed.sort(CLAIM_ORDER);
+		attachPayloads(claimed);
 
-		WebhookEvent event = claimed.getFirst();
-		Instant now = Instant.now();
-		try {
-			event.markProcessing(now);
-			repository.save(event);
+		for (WebhookEvent event : claimed) {
 			log.info("event_transition event_id={} state={} retry_count={}",
 				event.getId(), event.getState(), event.getRetryCount());
+		}
 
-			handler.handle(event);
+		List<CompletableFuture<Void>> outcomes = new ArrayList<>(claimed.size());
+		for (WebhookEvent event : claimed) {
+			Instant now = Instant.now();
+			if (!circuitBreakers.tryAcquire(event.getSource(), now)) {
+				event.markParked(circuitBreakers.parkedUntil(event.getSource(), now), now);
+				metrics.recordTransition(event.getSource(), Transition.PARKED);
+				log.info("event_transition event_id={} state={} retry_count={} reason=CircuitOpen",
+					event.getId(), event.getState(), event.getRetryCount());
+				outcomes.add(null);
+				continue;
+			}
+			outcomes.add(start(event));
+		}
 
-			event.markSuccess(Instant.now());
-			repository.save(event);
-			log.info("event_transition event_id={} state={} retry_count={}",
-				event.getId(), event.getState(), event.getRetryCount());
-		} catch (Exception ex) {
-			handleFailure(event, ex);
+		for (int i = 0; i < claimed.size(); i++) {
+			WebhookEvent event = claimed.get(i);
+			CompletableFuture<Void> outcome = outcomes.get(i);
+			if (outcome == null) {
+				continue;
+			}
+			try {
+				outcome.join();
+
+				event.markSuccess(Instant.now());
+				metrics.recordTransition(event.getSource(), Transition.SUCCESS);
+				log.info("event_transition event_id={} state={} retry_count={}",
+					event.getId(), event.getState(), event.getRetryCount());
+			} catch (CompletionException | CancellationException ex) {
+				handleFailure(event, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+			}
+		}
+
+		completeLeases(leaseOwner, claimed);
+		return claimed.size();
+	}
+
+	/**
+	 * Starts the handler and reports its outcome and latency to the circuit breaker and the metrics as
+	 * soon as it is known. Only failures of the destination itself count against the breaker; see
+	 * {@link #isDestinationFailure}. For a synchronous handler that is before the next event of the
+	 * batch is started, so a source that fails mid-batch has the rest of its events parked.
+	 */
+	private CompletableFuture<Void> start(WebhookEvent event) {
+		long startNanos = System.nanoTime();
+		CompletableFuture<Void> outcome;
+		try {
+			outcome = handler.handleAsync(event);
+		} catch (RuntimeException ex) {
+			outcome = CompletableFuture.failedFuture(ex);
 		}
-		return true;
+		return outcome.whenComplete((ignored, ex) -> {
+			metrics.recordHandler(event.getSource(), ex == null, System.nanoTime() - startNanos);
+			if (ex == null) {
+				circuitBreakers.recordSuccess(event.getSource());
+			} else if (isDestinationFailure(ex)) {
+				circuitBreakers.recordFailure(event.getSource(), Instant.now());
+			} else {
+				circuitBreakers.recordIgnored(event.getSource());
+			}
+		});
 	}
 
-	private void handleFailure(WebhookEvent event, Exception ex) {
+	/**
+	 * Whether a handler failure says the source's destination is unreachable or failing, as opposed to
+	 * rejecting this one event or asking for it to be retried later: a
+	 * {@link DestinationUnavailableException}, an I/O error or a timeout anywhere in the cause chain, but
+	 * never a {@link RetryableHandlerException}, whose {@code Retry-After} already paces the source.
+	 */
+	static boolean isDestinationFailure(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof RetryableHandlerException) {
+				return false;
+			}
+			if (cause instanceof DestinationUnavailableException
+					|| cause instanceof IOException
+					|| cause instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void attachPayloads(List<WebhookEvent> events) {
+		UUID[] ids = new UUID[events.size()];
+		Instant[] createdAts = new Instant[events.size()];
+		for (int i = 0; i < events.size(); i++) {
+			ids[i] = events.get(i).getId();
+			createdAts[i] = events.get(i).getCreatedAt();
+		}
+		Map<UUID, String> payloads = new HashMap<>();
+		for (StoredPayload stored : repository.findPayloads(ids, createdAts)) {
+			payloads.put(stored.getEventId(), stored.getPayload());
+		}
+		for (WebhookEvent event : events) {
+			event.attachPayload(payloads.get(event.getId()));
+		}
+	}
+
+	private void handleFailure(WebhookEvent event, Throwable ex) {
 		Instant now = Instant.now();
 		int nextRetryCount = event.getRetryCount() + 1;
 		String reason = ex.getClass().getSimpleName();
 
-		if (nextRetryCount > retryPolicy.getMaxRetries()) {
+		if (nextRetryCount > retryPolicy.getMaxRetries(event.getSource())) {
 			log.warn("event_transition event_id={} state=DEAD_LETTER retry_count={} reason={}",
 				event.getId(), nextRetryCount, reason);
 			event.markDeadLetter(reason, nextRetryCount, now);
-			repository.save(event);
+			metrics.recordTransition(event.getSource(), Transition.DEAD_LETTER);
 			return;
 		}
 
 		log.warn("event_transition event_id={} state=FAILED retry_count={} reason={}",
 			event.getId(), nextRetryCount, reason);
-		event.markFailed(reason, nextRetryCount, retryPolicy.computeNextRetryAt(nextRetryCount, now), now);
-		repository.save(event);
+		Duration retryAfter = ex instanceof RetryableHandlerException retryable ? retryable.getRetryAfter() : null;
+		event.markFailed(reason, nextRetryCount,
+				retryPolicy.computeNextRetryAt(event.getSource(), nextRetryCount, now, retryAfter), now);
+		metrics.recordTransition(event.getSource(), Transition.FAILED);
+	}
+
+	private void completeLeases(String leaseOwner, List<WebhookEvent> events) {
+		int size = events.size();
+		UUID[] ids = new UUID[size];
+		Instant[] createdAts = new Instant[size];
+		String[] states = new String[size];
+		Integer[] retryCounts = new Integer[size];
+		Instant[] nextRetryAts = new Instant[size];
+		String[] failureReasons = new String[size];
+		for (int i = 0; i < size; i++) {
+			WebhookEvent event = events.get(i);
+			ids[i] = event.getId();
+			createdAts[i] = event.getCreatedAt();
+			states[i] = event.getState().name();
+			retryCounts[i] = event.getRetryCount();
+			nextRetryAts[i] = event.getNextRetryAt();
+			failureReasons[i] = event.getFailureReason();
+		}
+
+		int updated = repository.completeLeasedEvents(
+				leaseOwner, ids, createdAts, states, retryCounts, nextRetryAts, failureReasons);
+		if (updated < size) {
+			log.warn("Lease lost for {} of {} event(s) lease_owner={}; their outcome was discarded",
+				size - updated, size, leaseOwner);
+		}
 	}
 }
@@ -0,0 +1,84 @@
+package com.ansh.EventRelay.worker;
+
+import com.ansh.EventRelay.events.WebhookEventRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the daily {@code webhook_events} partitions ahead of the clock, removes partitions that fell
+ * out of the retention period in one DDL statement each, and prunes dedup keys that left the dedup
+ * window.
+ */
+@Component
+public class WebhookEventRetentionJob {
+	private static final Logger log = LoggerFactory.getLogger(WebhookEventRetentionJob.class);
+
+	private final WebhookEventRepository repository;
+	private final int partitionsAhead;
+	private final Duration retention;
+	private final boolean archive;
+	private final Duration dedupWindow;
+	private final int dedupPurgeBatchSize;
+
+	public WebhookEventRetentionJob(
+			WebhookEventRepository repository,
+			@Value("${eventrelay.retention.partitionsAhead:7}") int partitionsAhead,
+			@Value("${eventrelay.retention.days:30}") int retentionDays,
+			@Value("${eventrelay.retention.archive:false}") boolean archive,
+			@Value("${eventrelay.dedup.windowDays:7}") int dedupWindowDays,
+			@Value("${eventrelay.dedup.purgeBatchSize:5000}") int dedupPurgeBatchSize
+	) {
+		this.repository = repository;
+		this.partitionsAhead = partitionsAhead;
+		this.retention = Duration.ofDays(retentionDays);
+		this.archive = archive;
+		this.dedupWindow = Duration.ofDays(dedupWindowDays);
+		this.dedupPurgeBatchSize = dedupPurgeBatchSize;
+	}
+
+	@Scheduled(fixedDelayString = "${eventrelay.retention.delayMs:3600000}")
+	public void tick() {
+		Instant now = Instant.now();
+		int created = ensurePartitions(now);
+		if (created > 0) {
+			log.info("Created {} webhook_events partition(s)", created);
+		}
+
+		List<String> removed = removeExpiredPartitions(now);
+		if (!removed.isEmpty()) {
+			log.info("Retention {} partition(s) {}", archive ? "detached" : "dropped", removed);
+		}
+
+		int purged = purgeExpiredDedupKeys(now);
+		if (purged > 0) {
+			log.info("Purged {} dedup key(s) older than {}", purged, dedupWindow);
+		}
+	}
+
+	public int ensurePartitions(Instant now) {
+		return repository.ensurePartitions(LocalDate.ofInstant(now, ZoneOffset.UTC), partitionsAhead);
+	}
+
+	public List<String> removeExpiredPartitions(Instant now) {
+		return repository.dropPartitionsOlderThan(now.minus(retention), archive);
+	}
+
+	public int purgeExpiredDedupKeys(Instant now) {
+		Instant cutoff = now.minus(dedupWindow);
+		int total = 0;
+		int deleted;
+		do {
+			deleted = repository.deleteDedupKeysCreatedBefore(cutoff, dedupPurgeBatchSize);
+			total += deleted;
+		} while (deleted == dedupPurgeBatchSize);
+		return total;
+	}
+}
@@ -3,26 +3,38 @@ package com.ansh.EventRelay.worker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "eventrelay.worker.engine", havingValue = "scheduled")
 public class WebhookEventWorker {
 	private static final Logger log = LoggerFactory.getLogger(WebhookEventWorker.class);
 
 	private final WebhookEventProcessor processor;
 	private final int batchSize;
+	private final boolean batchMode;
 
 	public WebhookEventWorker(
 			WebhookEventProcessor processor,
-			@Value("${eventrelay.worker.batchSize:5}") int batchSize
+			@Value("${eventrelay.worker.batchSize:5}") int batchSize,
+			@Value("${eventrelay.worker.batchMode:true}") boolean batchMode
 	) {
 		this.processor = processor;
 		this.batchSize = batchSize;
+		this.batchMode = batchMode;
 	}
 
 	@Scheduled(fixedDelayString = "${eventrelay.worker.fixedDelayMs:1000}")
 	public void tick() {
+		int processed = batchMode ? processor.processEligibleBatch(batchSize) : processOneAtATime();
+		if (processed > 0) {
+			log.info("Worker processed {} event(s)", processed);
+		}
+	}
+
+	private int processOneAtATime() {
 		int processed = 0;
 		for (int i = 0; i < batchSize; i++) {
 			boolean didWork = processor.processNextEligibleEvent();
@@ -31,8 +43,6 @@ public class WebhookEventWorker {
 			}
 			processed++;
 		}
-		if (processed > 0) {
-			log.info("Worker processed {} event(s)", processed);
-		}
+		return processed;
 	}
 }
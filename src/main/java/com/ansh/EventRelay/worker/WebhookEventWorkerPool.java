@@ -0,0 +1,178 @@
+package com.ansh.EventRelay.worker;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@code concurrency} independent claim/handle loops. Every loop claims its own batch through
+ * {@link WebhookEventProcessor#processEligibleBatch(int)}, so the loops (and any other nodes) divide
+ * the backlog between them via {@code FOR UPDATE SKIP LOCKED} and a slow handler only stalls its own loop.
+ * Idle loops back off from {@code minIdleDelayMs} to {@code fixedDelayMs} and are woken early through
+ * {@link WorkerWakeup} when new events are announced. Each loop's {@link WorkerStats} are published as
+ * {@code eventrelay.worker.*} counters tagged with the loop's name.
+ */
+@Component
+@ConditionalOnProperty(name = "eventrelay.worker.engine", havingValue = "pool", matchIfMissing = true)
+public class WebhookEventWorkerPool implements SmartLifecycle, MeterBinder {
+	private static final Logger log = LoggerFactory.getLogger(WebhookEventWorkerPool.class);
+
+	private final WebhookEventProcessor processor;
+	private final WorkerWakeup wakeup;
+	private final int concurrency;
+	private final int batchSize;
+	private final boolean virtualThreads;
+	private final Duration minIdleDelay;
+	private final Duration maxIdleDelay;
+	private final Duration shutdownTimeout;
+	private final List<WorkerStats> workerStats = new ArrayList<>();
+
+	private volatile boolean running;
+	private ExecutorService executor;
+
+	public WebhookEventWorkerPool(
+			WebhookEventProcessor processor,
+			WorkerWakeup wakeup,
+			@Value("${eventrelay.worker.concurrency:4}") int concurrency,
+			@Value("${eventrelay.worker.batchSize:5}") int batchSize,
+			@Value("${eventrelay.worker.virtualThreads:${spring.threads.virtual.enabled:false}}") boolean virtualThreads,
+			@Value("${eventrelay.worker.minIdleDelayMs:50}") long minIdleDelayMs,
+			@Value("${eventrelay.worker.fixedDelayMs:1000}") long maxIdleDelayMs,
+			@Value("${eventrelay.worker.shutdownTimeoutMs:30000}") long shutdownTimeoutMs
+	) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("eventrelay.worker.concurrency must be at least 1");
+		}
+		this.processor = processor;
+		this.wakeup = wakeup;
+		this.concurrency = concurrency;
+		this.batchSize = batchSize;
+		this.virtualThreads = virtualThreads;
+		this.minIdleDelay = Duration.ofMillis(Math.min(minIdleDelayMs, maxIdleDelayMs));
+		this.maxIdleDelay = Duration.ofMillis(maxIdleDelayMs);
+		this.shutdownTimeout = Duration.ofMillis(shutdownTimeoutMs);
+		for (int i = 0; i < concurrency; i++) {
+			workerStats.add(new WorkerStats("worker-" + i));
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (WorkerStats stats : workerStats) {
+			counter(registry, "eventrelay.worker.batches", "Batches that handled at least one event", stats, WorkerStats::getBatches);
+			counter(registry, "eventrelay.worker.processed", "Events handled", stats, WorkerStats::getProcessedEvents);
+			counter(registry, "eventrelay.worker.idle.polls", "Claims that found nothing to do", stats, WorkerStats::getIdlePolls);
+			counter(registry, "eventrelay.worker.errors", "Batches that failed with an exception", stats, WorkerStats::getErrors);
+		}
+	}
+
+	private static void counter(MeterRegistry registry, String name, String description, WorkerStats stats,
+			ToLongFunction<WorkerStats> value) {
+		FunctionCounter.builder(name, stats, s -> value.applyAsLong(s))
+				.description(description)
+				.tag("worker", stats.getWorkerName())
+				.register(registry);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		ThreadFactory threadFactory = virtualThreads
+				? Thread.ofVirtual().name("event-worker-", 0).factory()
+				: Thread.ofPlatform().name("event-worker-", 0).factory();
+		executor = Executors.newThreadPerTaskExecutor(threadFactory);
+		running = true;
+
+		for (WorkerStats stats : workerStats) {
+			executor.submit(() -> runLoop(stats));
+		}
+		log.info("Worker pool started concurrency={} batchSize={} virtualThreads={}",
+			concurrency, batchSize, virtualThreads);
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		wakeup.signal();
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				log.warn("Worker pool did not drain within {}; interrupting in-flight batches", shutdownTimeout);
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		for (WorkerStats stats : workerStats) {
+			log.info("Worker stopped name={} batches={} processed={} idle_polls={} errors={}",
+				stats.getWorkerName(), stats.getBatches(), stats.getProcessedEvents(),
+				stats.getIdlePolls(), stats.getErrors());
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	public List<WorkerStats> getWorkerStats() {
+		return List.copyOf(workerStats);
+	}
+
+	private void runLoop(WorkerStats stats) {
+		Duration idleDelay = minIdleDelay;
+		while (running) {
+			long seenGeneration = wakeup.generation();
+			int processed;
+			try {
+				processed = processor.processEligibleBatch(batchSize);
+			} catch (Exception ex) {
+				stats.recordError();
+				log.warn("Worker {} failed to process a batch", stats.getWorkerName(), ex);
+				processed = 0;
+			}
+
+			if (processed > 0) {
+				stats.recordBatch(processed, Instant.now());
+				log.debug("Worker {} processed {} event(s)", stats.getWorkerName(), processed);
+				idleDelay = minIdleDelay;
+				continue;
+			}
+
+			stats.recordIdlePoll();
+			try {
+				if (wakeup.awaitSignal(seenGeneration, idleDelay)) {
+					idleDelay = minIdleDelay;
+				} else {
+					idleDelay = idleDelay.multipliedBy(2).compareTo(maxIdleDelay) > 0
+							? maxIdleDelay
+							: idleDelay.multipliedBy(2);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
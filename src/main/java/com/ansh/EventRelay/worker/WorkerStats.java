@@ -0,0 +1,59 @@
+package com.ansh.EventRelay.worker;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counters for a single claim/handle loop of the {@link WebhookEventWorkerPool}.
+ */
+public class WorkerStats {
+	private final String workerName;
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong processedEvents = new AtomicLong();
+	private final AtomicLong idlePolls = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicReference<Instant> lastActiveAt = new AtomicReference<>();
+
+	public WorkerStats(String workerName) {
+		this.workerName = workerName;
+	}
+
+	void recordBatch(int processed, Instant now) {
+		batches.incrementAndGet();
+		processedEvents.addAndGet(processed);
+		lastActiveAt.set(now);
+	}
+
+	void recordIdlePoll() {
+		idlePolls.incrementAndGet();
+	}
+
+	void recordError() {
+		errors.incrementAndGet();
+	}
+
+	public String getWorkerName() {
+		return workerName;
+	}
+
+	public long getBatches() {
+		return batches.get();
+	}
+
+	public long getProcessedEvents() {
+		return processedEvents.get();
+	}
+
+	public long getIdlePolls() {
+		return idlePolls.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	public Instant getLastActiveAt() {
+		return lastActiveAt.get();
+	}
+}
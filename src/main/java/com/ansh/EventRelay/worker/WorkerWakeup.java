@@ -0,0 +1,56 @@
+package com.ansh.EventRelay.worker;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wakes idle worker loops as soon as new work may be available. Loops read {@link #generation()}
+ * before they claim, so a signal that arrives between an empty claim and the wait is not lost.
+ */
+@Component
+public class WorkerWakeup {
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition signalled = lock.newCondition();
+	private long generation;
+
+	public long generation() {
+		lock.lock();
+		try {
+			return generation;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void signal() {
+		lock.lock();
+		try {
+			generation++;
+			signalled.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until a signal newer than {@code seenGeneration} arrives or {@code timeout} elapses.
+	 * Returns {@code true} if the wait ended because of a signal.
+	 */
+	public boolean awaitSignal(long seenGeneration, Duration timeout) throws InterruptedException {
+		long remainingNanos = timeout.toNanos();
+		lock.lock();
+		try {
+			while (generation == seenGeneration) {
+				if (remainingNanos <= 0) {
+					return false;
+				}
+				remainingNanos = signalled.awaitNanos(remainingNanos);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+-- Rows that land in a default partition (for example from a skewed clock) used to block their day
+-- for good: creating a partition for a day the default partition holds rows of fails, and the error
+-- aborted webhook_events_ensure_partitions before any later partition was created. Retention never
+-- reached those rows either, since it only drops daily partitions.
+--
+-- A missing day is now created as a standalone table, the default partition's rows of that day are
+-- moved into it, and it is attached. Days that only the default partition holds rows of are created
+-- too, so that the default partitions are emptied on every run and their rows retire like any other.
+-- Rows are moved with statements on the partitions themselves, which do not fire the counter
+-- triggers on webhook_events; the counts stay right because the rows stay in the table.
+
+create or replace function webhook_events_ensure_partition(parent text, default_partition text, partition_name text,
+    partition_day date, storage text)
+returns boolean
+language plpgsql
+as $$
+declare
+    lower_bound timestamptz := partition_day::timestamp at time zone 'UTC';
+    upper_bound timestamptz := (partition_day + 1)::timestamp at time zone 'UTC';
+    has_default_rows boolean;
+begin
+    if to_regclass(partition_name) is not null then
+        return false;
+    end if;
+
+    execute format('select exists (select 1 from %I where created_at >= %L and created_at < %L)',
+        default_partition, lower_bound, upper_bound) into has_default_rows;
+    if not has_default_rows then
+        execute format('create table %I partition of %I for values from (%L) to (%L) %s',
+            partition_name, parent, lower_bound, upper_bound, storage);
+        return true;
+    end if;
+
+    execute format('create table %I (like %I including defaults) %s', partition_name, parent, storage);
+    execute format(
+        'with moved as (delete from %I where created_at >= %L and created_at < %L returning *)
+         insert into %I select * from moved',
+        default_partition, lower_bound, upper_bound, partition_name);
+    execute format('alter table %I attach partition %I for values from (%L) to (%L)',
+        parent, partition_name, lower_bound, upper_bound);
+    raise notice 'Moved rows of % out of %', partition_day, default_partition;
+    return true;
+end
+$$;
+
+create or replace function webhook_events_ensure_partitions(from_day date, days_ahead int)
+returns int
+language plpgsql
+as $$
+declare
+    partition_day date;
+    suffix text;
+    created int := 0;
+begin
+    -- Serialize concurrent callers on several nodes.
+    perform pg_advisory_xact_lock(hashtext('webhook_events_partitions'));
+
+    for partition_day in
+        select generate_series(from_day, (now() at time zone 'UTC')::date + days_ahead, interval '1 day')::date
+        union
+        select distinct (created_at at time zone 'UTC')::date from webhook_events_default
+        union
+        select distinct (created_at at time zone 'UTC')::date from webhook_event_payloads_default
+        order by 1
+    loop
+        suffix := to_char(partition_day, 'YYYYMMDD');
+        if webhook_events_ensure_partition('webhook_events', 'webhook_events_default',
+                'webhook_events_p' || suffix, partition_day, 'with (fillfactor = 80)') then
+            created := created + 1;
+        end if;
+        perform webhook_events_ensure_partition('webhook_event_payloads', 'webhook_event_payloads_default',
+            'webhook_event_payloads_p' || suffix, partition_day, '');
+    end loop;
+    return created;
+end
+$$;
+
+select webhook_events_ensure_partitions((now() at time zone 'UTC')::date, 7);
@@ -0,0 +1,6 @@
+alter table webhook_events add column if not exists lease_owner varchar(255) null;
+alter table webhook_events add column if not exists lease_until timestamptz null;
+
+create index if not exists idx_webhook_events_processing_lease_until
+    on webhook_events (lease_until)
+    where state = 'PROCESSING';
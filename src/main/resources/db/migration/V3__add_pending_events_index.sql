@@ -0,0 +1,6 @@
+-- Covers only rows a worker can still claim, so terminal SUCCESS/DEAD_LETTER rows never enter the
+-- claim scan. Keyed on the time an event became eligible: a range scan up to now() returns due rows
+-- already in claim order and never visits retries that are scheduled for later.
+create index if not exists idx_webhook_events_pending_eligible_at
+    on webhook_events ((coalesce(next_retry_at, created_at)), id)
+    where state in ('RECEIVED', 'FAILED');
@@ -0,0 +1,148 @@
+-- Range-partition webhook_events by day on created_at so that old events can be removed by
+-- dropping whole partitions instead of deleting rows.
+--
+-- A unique constraint on a partitioned table has to contain the partition key, which would only
+-- deduplicate within a single day. Dedup therefore moves to webhook_event_dedup_keys, which keeps
+-- the original constraint name and is pruned separately once keys leave the dedup window.
+
+alter table webhook_events rename to webhook_events_legacy;
+
+create table webhook_events (
+    id uuid not null,
+    source varchar(255) not null,
+    external_event_id varchar(255) not null,
+    payload jsonb not null,
+    state varchar(32) not null,
+    retry_count int not null default 0,
+    next_retry_at timestamptz null,
+    failure_reason text null,
+    lease_owner varchar(255) null,
+    lease_until timestamptz null,
+    created_at timestamptz not null default now(),
+    updated_at timestamptz not null default now(),
+
+    constraint webhook_events_partitioned_pkey primary key (id, created_at)
+) partition by range (created_at);
+
+-- Catches rows outside every daily partition (e.g. a skewed clock) instead of failing the insert.
+create table webhook_events_default partition of webhook_events default;
+
+create or replace function webhook_events_ensure_partitions(from_day date, days_ahead int)
+returns int
+language plpgsql
+as $$
+declare
+    partition_day date;
+    partition_name text;
+    created int := 0;
+begin
+    -- Serialize concurrent callers on several nodes.
+    perform pg_advisory_xact_lock(hashtext('webhook_events_partitions'));
+
+    for partition_day in
+        select generate_series(from_day, (now() at time zone 'UTC')::date + days_ahead, interval '1 day')::date
+    loop
+        partition_name := 'webhook_events_p' || to_char(partition_day, 'YYYYMMDD');
+        if to_regclass(partition_name) is null then
+            execute format(
+                'create table %I partition of webhook_events for values from (%L) to (%L)',
+                partition_name,
+                partition_day::timestamp at time zone 'UTC',
+                (partition_day + 1)::timestamp at time zone 'UTC'
+            );
+            created := created + 1;
+        end if;
+    end loop;
+    return created;
+end
+$$;
+
+-- Drops (or detaches and renames to webhook_events_archive_YYYYMMDD) every daily partition that
+-- ends at or before older_than. Partitions that still hold claimable or in-flight events are kept.
+create or replace function webhook_events_drop_partitions(older_than timestamptz, archive boolean)
+returns setof text
+language plpgsql
+as $$
+declare
+    part record;
+    has_pending boolean;
+begin
+    perform pg_advisory_xact_lock(hashtext('webhook_events_partitions'));
+
+    for part in
+        select c.relname as name,
+               to_date(substring(c.relname from '(\d{8})$'), 'YYYYMMDD') as partition_day
+        from pg_inherits i
+        join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'webhook_events'::regclass
+          and c.relname ~ '^webhook_events_p\d{8}$'
+        order by c.relname
+    loop
+        continue when (part.partition_day + 1)::timestamp at time zone 'UTC' > older_than;
+
+        execute format(
+            'select exists (select 1 from %I where state in (''RECEIVED'', ''PROCESSING'', ''FAILED''))',
+            part.name
+        ) into has_pending;
+        if has_pending then
+            raise warning 'Keeping partition % because it still holds pending events', part.name;
+            continue;
+        end if;
+
+        if archive then
+            execute format('alter table webhook_events detach partition %I', part.name);
+            execute format('alter table %I rename to %I', part.name,
+                'webhook_events_archive_' || to_char(part.partition_day, 'YYYYMMDD'));
+        else
+            execute format('drop table %I', part.name);
+        end if;
+        return next part.name;
+    end loop;
+end
+$$;
+
+select webhook_events_ensure_partitions(
+    (coalesce((select min(created_at) from webhook_events_legacy), now()) at time zone 'UTC')::date,
+    7
+);
+
+insert into webhook_events
+    (id, source, external_event_id, payload, state, retry_count, next_retry_at, failure_reason,
+     lease_owner, lease_until, created_at, updated_at)
+select id, source, external_event_id, payload, state, retry_count, next_retry_at, failure_reason,
+       lease_owner, lease_until, created_at, updated_at
+from webhook_events_legacy;
+
+create table webhook_event_dedup_keys (
+    source varchar(255) not null,
+    external_event_id varchar(255) not null,
+    created_at timestamptz not null default now()
+);
+
+insert into webhook_event_dedup_keys (source, external_event_id, created_at)
+select source, external_event_id, created_at
+from webhook_events_legacy;
+
+drop table webhook_events_legacy;
+
+alter index webhook_events_partitioned_pkey rename to webhook_events_pkey;
+
+alter table webhook_event_dedup_keys
+    add constraint uk_webhook_events_source_external_event_id primary key (source, external_event_id);
+
+create index if not exists idx_webhook_event_dedup_keys_created_at
+    on webhook_event_dedup_keys (created_at);
+
+create index if not exists idx_webhook_events_state_next_retry_at
+    on webhook_events (state, next_retry_at);
+
+create index if not exists idx_webhook_events_source
+    on webhook_events (source);
+
+create index if not exists idx_webhook_events_processing_lease_until
+    on webhook_events (lease_until)
+    where state = 'PROCESSING';
+
+create index if not exists idx_webhook_events_pending_eligible_at
+    on webhook_events ((coalesce(next_retry_at, created_at)), id)
+    where state in ('RECEIVED', 'FAILED');
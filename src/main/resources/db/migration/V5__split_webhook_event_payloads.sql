@@ -0,0 +1,129 @@
+-- Move payloads out of the queue rows. webhook_events now only carries the small, frequently
+-- updated queue state, so a transition rewrites a narrow tuple and listing queries never read
+-- payload bytes. Payloads are written once at ingest and read once per delivery attempt.
+
+create table webhook_event_payloads (
+    event_id uuid not null,
+    created_at timestamptz not null,
+    payload jsonb not null,
+
+    constraint webhook_event_payloads_pkey primary key (event_id, created_at)
+) partition by range (created_at);
+
+create table webhook_event_payloads_default partition of webhook_event_payloads default;
+
+-- Same daily layout as webhook_events so both are created and retired together. Queue partitions
+-- leave free space on every page so that a new row version usually fits next to the old one.
+create or replace function webhook_events_ensure_partitions(from_day date, days_ahead int)
+returns int
+language plpgsql
+as $$
+declare
+    partition_day date;
+    suffix text;
+    created int := 0;
+begin
+    -- Serialize concurrent callers on several nodes.
+    perform pg_advisory_xact_lock(hashtext('webhook_events_partitions'));
+
+    for partition_day in
+        select generate_series(from_day, (now() at time zone 'UTC')::date + days_ahead, interval '1 day')::date
+    loop
+        suffix := to_char(partition_day, 'YYYYMMDD');
+        if to_regclass('webhook_events_p' || suffix) is null then
+            execute format(
+                'create table %I partition of webhook_events for values from (%L) to (%L) with (fillfactor = 80)',
+                'webhook_events_p' || suffix,
+                partition_day::timestamp at time zone 'UTC',
+                (partition_day + 1)::timestamp at time zone 'UTC'
+            );
+            created := created + 1;
+        end if;
+        if to_regclass('webhook_event_payloads_p' || suffix) is null then
+            execute format(
+                'create table %I partition of webhook_event_payloads for values from (%L) to (%L)',
+                'webhook_event_payloads_p' || suffix,
+                partition_day::timestamp at time zone 'UTC',
+                (partition_day + 1)::timestamp at time zone 'UTC'
+            );
+        end if;
+    end loop;
+    return created;
+end
+$$;
+
+create or replace function webhook_events_drop_partitions(older_than timestamptz, archive boolean)
+returns setof text
+language plpgsql
+as $$
+declare
+    part record;
+    has_pending boolean;
+    payload_partition text;
+begin
+    perform pg_advisory_xact_lock(hashtext('webhook_events_partitions'));
+
+    for part in
+        select c.relname as name,
+               to_date(substring(c.relname from '(\d{8})$'), 'YYYYMMDD') as partition_day
+        from pg_inherits i
+        join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'webhook_events'::regclass
+          and c.relname ~ '^webhook_events_p\d{8}$'
+        order by c.relname
+    loop
+        continue when (part.partition_day + 1)::timestamp at time zone 'UTC' > older_than;
+
+        execute format(
+            'select exists (select 1 from %I where state in (''RECEIVED'', ''PROCESSING'', ''FAILED''))',
+            part.name
+        ) into has_pending;
+        if has_pending then
+            raise warning 'Keeping partition % because it still holds pending events', part.name;
+            continue;
+        end if;
+
+        payload_partition := 'webhook_event_payloads_p' || to_char(part.partition_day, 'YYYYMMDD');
+        if archive then
+            execute format('alter table webhook_events detach partition %I', part.name);
+            execute format('alter table %I rename to %I', part.name,
+                'webhook_events_archive_' || to_char(part.partition_day, 'YYYYMMDD'));
+            if to_regclass(payload_partition) is not null then
+                execute format('alter table webhook_event_payloads detach partition %I', payload_partition);
+                execute format('alter table %I rename to %I', payload_partition,
+                    'webhook_event_payloads_archive_' || to_char(part.partition_day, 'YYYYMMDD'));
+            end if;
+        else
+            execute format('drop table %I', part.name);
+            execute format('drop table if exists %I', payload_partition);
+        end if;
+        return next part.name;
+    end loop;
+end
+$$;
+
+select webhook_events_ensure_partitions(
+    (coalesce((select min(created_at) from webhook_events), now()) at time zone 'UTC')::date,
+    7
+);
+
+insert into webhook_event_payloads (event_id, created_at, payload)
+select id, created_at, payload
+from webhook_events;
+
+alter table webhook_events drop column payload;
+
+do $$
+declare
+    part record;
+begin
+    for part in
+        select c.relname as name
+        from pg_inherits i
+        join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'webhook_events'::regclass
+    loop
+        execute format('alter table %I set (fillfactor = 80)', part.name);
+    end loop;
+end
+$$;
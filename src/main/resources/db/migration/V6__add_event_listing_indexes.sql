@@ -0,0 +1,16 @@
+-- Listing and export walk events in (created_at, id) order, optionally narrowed to one state or
+-- source, and resume from a keyset cursor. Each access path gets a matching index so a page costs
+-- one index range scan no matter how deep the cursor is. The composite indexes replace the old
+-- single-column ones, which the claim path no longer uses.
+
+drop index if exists idx_webhook_events_state_next_retry_at;
+drop index if exists idx_webhook_events_source;
+
+create index if not exists idx_webhook_events_created_at_id
+    on webhook_events (created_at, id);
+
+create index if not exists idx_webhook_events_state_created_at_id
+    on webhook_events (state, created_at, id);
+
+create index if not exists idx_webhook_events_source_created_at_id
+    on webhook_events (source, created_at, id);
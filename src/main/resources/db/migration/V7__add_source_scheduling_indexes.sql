@@ -0,0 +1,12 @@
+-- The fair claim walks the sources that have claimable events with a loose index scan and then takes
+-- each source's oldest eligible events, so pending rows are also indexed by source first. Per-source
+-- in-flight limits count PROCESSING rows of one source, which the second index answers without
+-- touching settled rows.
+
+create index if not exists idx_webhook_events_pending_source_eligible_at
+    on webhook_events (source, (coalesce(next_retry_at, created_at)), id)
+    where state in ('RECEIVED', 'FAILED');
+
+create index if not exists idx_webhook_events_processing_source
+    on webhook_events (source)
+    where state = 'PROCESSING';
@@ -0,0 +1,13 @@
+-- Events that share an ordering key within a source are handled one at a time, in the order they
+-- were stored. ordering_seq records that order; it is only drawn for events that have a key, so
+-- unordered sources never touch the sequence. The partial index holds the events of a key that are
+-- not settled yet, which is exactly what the claim checks before it takes a keyed event.
+
+alter table webhook_events add column if not exists ordering_key text null;
+alter table webhook_events add column if not exists ordering_seq bigint null;
+
+create sequence if not exists webhook_events_ordering_seq;
+
+create index if not exists idx_webhook_events_unsettled_ordering_key
+    on webhook_events (source, ordering_key, ordering_seq)
+    where ordering_key is not null and state in ('RECEIVED', 'FAILED', 'PROCESSING');
@@ -0,0 +1,191 @@
+-- /events/stats and the backlog gauges read event counts per state, source and retry count from
+-- webhook_event_counts instead of counting webhook_events. Statement-level triggers record what each
+-- INSERT, UPDATE or DELETE changed as a few grouped rows in webhook_event_count_deltas. That table is
+-- append-only, so concurrent writers never wait on a shared counter row; webhook_event_counts_rollup()
+-- periodically folds the deltas into the totals, and readers add the deltas that are not folded yet.
+
+create table webhook_event_counts (
+    state varchar(32) not null,
+    source varchar(255) not null,
+    retry_count int not null,
+    events bigint not null,
+
+    constraint webhook_event_counts_pkey primary key (state, source, retry_count)
+);
+
+create table webhook_event_count_deltas (
+    state varchar(32) not null,
+    source varchar(255) not null,
+    retry_count int not null,
+    delta bigint not null
+);
+
+-- Running nodes keep writing while this migrates. Blocking their writes until the triggers below
+-- exist and this transaction commits makes the backfill and the first delta describe the same table.
+lock table webhook_events in share row exclusive mode;
+
+insert into webhook_event_counts (state, source, retry_count, events)
+select state, source, retry_count, count(*)
+from webhook_events
+group by state, source, retry_count;
+
+create or replace function webhook_events_count_inserted()
+returns trigger
+language plpgsql
+as $$
+begin
+    insert into webhook_event_count_deltas (state, source, retry_count, delta)
+    select state, source, retry_count, count(*)
+    from new_rows
+    group by state, source, retry_count;
+    return null;
+end
+$$;
+
+-- Rows whose state and retry count did not change cancel out and are not recorded.
+create or replace function webhook_events_count_updated()
+returns trigger
+language plpgsql
+as $$
+begin
+    insert into webhook_event_count_deltas (state, source, retry_count, delta)
+    select state, source, retry_count, sum(delta)
+    from (
+        select state, source, retry_count, 1 as delta from new_rows
+        union all
+        select state, source, retry_count, -1 as delta from old_rows
+    ) changes
+    group by state, source, retry_count
+    having sum(delta) <> 0;
+    return null;
+end
+$$;
+
+create or replace function webhook_events_count_deleted()
+returns trigger
+language plpgsql
+as $$
+begin
+    insert into webhook_event_count_deltas (state, source, retry_count, delta)
+    select state, source, retry_count, -count(*)
+    from old_rows
+    group by state, source, retry_count;
+    return null;
+end
+$$;
+
+create or replace function webhook_events_count_truncated()
+returns trigger
+language plpgsql
+as $$
+begin
+    delete from webhook_event_count_deltas;
+    delete from webhook_event_counts;
+    return null;
+end
+$$;
+
+create trigger webhook_events_count_inserted
+    after insert on webhook_events
+    referencing new table as new_rows
+    for each statement execute function webhook_events_count_inserted();
+
+create trigger webhook_events_count_updated
+    after update on webhook_events
+    referencing old table as old_rows new table as new_rows
+    for each statement execute function webhook_events_count_updated();
+
+create trigger webhook_events_count_deleted
+    after delete on webhook_events
+    referencing old table as old_rows
+    for each statement execute function webhook_events_count_deleted();
+
+create trigger webhook_events_count_truncated
+    after truncate on webhook_events
+    for each statement execute function webhook_events_count_truncated();
+
+-- Folds every committed delta into webhook_event_counts and removes totals that reached zero.
+-- Serialized across nodes; returns the number of totals that changed.
+create or replace function webhook_event_counts_rollup()
+returns int
+language plpgsql
+as $$
+declare
+    folded int;
+begin
+    perform pg_advisory_xact_lock(hashtext('webhook_event_counts_rollup'));
+
+    with moved as (
+        delete from webhook_event_count_deltas
+        returning state, source, retry_count, delta
+    )
+    insert into webhook_event_counts as c (state, source, retry_count, events)
+    select state, source, retry_count, sum(delta)
+    from moved
+    group by state, source, retry_count
+    on conflict (state, source, retry_count) do update
+    set events = c.events + excluded.events;
+    get diagnostics folded = row_count;
+
+    delete from webhook_event_counts where events = 0;
+    return folded;
+end
+$$;
+
+-- Dropping or detaching a partition does not fire row triggers, so its rows are subtracted from
+-- the counts first. Otherwise unchanged from V5.
+create or replace function webhook_events_drop_partitions(older_than timestamptz, archive boolean)
+returns setof text
+language plpgsql
+as $$
+declare
+    part record;
+    has_pending boolean;
+    payload_partition text;
+begin
+    perform pg_advisory_xact_lock(hashtext('webhook_events_partitions'));
+
+    for part in
+        select c.relname as name,
+               to_date(substring(c.relname from '(\d{8})$'), 'YYYYMMDD') as partition_day
+        from pg_inherits i
+        join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'webhook_events'::regclass
+          and c.relname ~ '^webhook_events_p\d{8}$'
+        order by c.relname
+    loop
+        continue when (part.partition_day + 1)::timestamp at time zone 'UTC' > older_than;
+
+        execute format(
+            'select exists (select 1 from %I where state in (''RECEIVED'', ''PROCESSING'', ''FAILED''))',
+            part.name
+        ) into has_pending;
+        if has_pending then
+            raise warning 'Keeping partition % because it still holds pending events', part.name;
+            continue;
+        end if;
+
+        execute format(
+            'insert into webhook_event_count_deltas (state, source, retry_count, delta)
+             select state, source, retry_count, -count(*) from %I group by state, source, retry_count',
+            part.name
+        );
+
+        payload_partition := 'webhook_event_payloads_p' || to_char(part.partition_day, 'YYYYMMDD');
+        if archive then
+            execute format('alter table webhook_events detach partition %I', part.name);
+            execute format('alter table %I rename to %I', part.name,
+                'webhook_events_archive_' || to_char(part.partition_day, 'YYYYMMDD'));
+            if to_regclass(payload_partition) is not null then
+                execute format('alter table webhook_event_payloads detach partition %I', payload_partition);
+                execute format('alter table %I rename to %I', payload_partition,
+                    'webhook_event_payloads_archive_' || to_char(part.partition_day, 'YYYYMMDD'));
+            end if;
+        else
+            execute format('drop table %I', part.name);
+            execute format('drop table if exists %I', payload_partition);
+        end if;
+        return next part.name;
+    end loop;
+end
+$$;
@@ -1,9 +1,14 @@
 package com.ansh.EventRelay;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ansh.EventRelay.events.EventReplayController;
 import com.ansh.EventRelay.events.WebhookEventRepository;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationContext;
 
 @SpringBootTest(properties = {
 		"spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration,org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration"
@@ -12,8 +17,16 @@ class EventRelayApplicationTests {
 	@MockBean
 	WebhookEventRepository webhookEventRepository;
 
+	@Autowired
+	ApplicationContext context;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void adminReplayIsOffByDefault() {
+		assertTrue(context.getBeansOfType(EventReplayController.class).isEmpty());
+	}
+
 }
@@ -1,28 +1,62 @@
 package com.ansh.EventRelay;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.ansh.EventRelay.events.EventCount;
+import com.ansh.EventRelay.events.EventStats;
 import com.ansh.EventRelay.events.WebhookEvent;
+import com.ansh.EventRelay.events.WebhookEventDto;
 import com.ansh.EventRelay.events.WebhookEventRepository;
 import com.ansh.EventRelay.events.WebhookEventState;
+import com.ansh.EventRelay.metrics.EventBacklogMetrics;
+import com.ansh.EventRelay.webhooks.ReactiveWebhookIngestionServer;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService;
+import com.ansh.EventRelay.worker.SourceScheduler;
 import com.ansh.EventRelay.worker.WebhookEventHandler;
+import com.ansh.EventRelay.worker.WebhookEventLeaseReaper;
+import com.ansh.EventRelay.worker.WebhookEventNotificationListener;
 import com.ansh.EventRelay.worker.WebhookEventProcessor;
+import com.ansh.EventRelay.worker.WebhookEventRetentionJob;
+import com.ansh.EventRelay.worker.WorkerWakeup;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpEntity;
@@ -32,21 +66,30 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.boot.test.web.client.TestRestTemplate;
-import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 @Testcontainers
-
+@AutoConfigureObservability(tracing = false)
 @SpringBootTest(
 		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
 		properties = {
 		"spring.task.scheduling.enabled=false",
-		"spring.main.allow-bean-definition-overriding=true",
+		"eventrelay.worker.engine=none",
+		"eventrelay.ingest.recentKeys.capacity=0",
+		"eventrelay.webhook.limits.sources.capped.max-in-flight=1",
+		"eventrelay.webhook.ordering.keys.ordered=/customer/id",
+		"eventrelay.webhook.ordering.keys.serial=source",
+		"eventrelay.replay.enabled=true",
+		"eventrelay.replay.chunkSize=2",
+		"eventrelay.events.exportPageSize=2",
+		"eventrelay.ingest.reactive.enabled=true",
+		"eventrelay.ingest.reactive.port=0",
 		"eventrelay.webhook.secrets.test=test-secret"
 		}
 )
@@ -79,15 +122,110 @@ class WebhookFlowIntegrationTests {
 	@Autowired
 	WebhookEventProcessor processor;
 
+	@Autowired
+	SourceScheduler scheduler;
+
+	@Autowired
+	WebhookEventLeaseReaper leaseReaper;
+
+	@Autowired
+	WebhookEventRetentionJob retentionJob;
+
 	@Autowired
 	CountingWebhookEventHandler handler;
 
+	@Autowired
+	ObjectProvider<DataSourceProperties> dataSourceProperties;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	WebhookIngestionService ingestionService;
+
+	@Autowired
+	EventBacklogMetrics backlogMetrics;
+
+	@Autowired
+	ReactiveWebhookIngestionServer reactiveServer;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
 	@BeforeEach
 	void reset() {
-		jdbcTemplate.execute("truncate table webhook_events");
+		jdbcTemplate.execute("truncate table webhook_events, webhook_event_payloads, webhook_event_dedup_keys");
 		handler.reset();
 	}
 
+	@Test
+	void payload_storedApartFromQueueRowAndAttachedForHandling() throws Exception {
+		sendSignedWebhook("test", "{\"id\":\"evt_payload\",\"amount\":42}");
+
+		WebhookEvent saved = repository.findBySourceAndExternalEventId("test", "evt_payload").orElseThrow();
+		assertEquals(null, saved.getPayload());
+		assertEquals(42, jdbcTemplate.queryForObject(
+				"select (payload->>'amount')::int from webhook_event_payloads where event_id = ?",
+				Integer.class, saved.getId()));
+
+		assertTrue(processor.processNextEligibleEvent());
+		assertTrue(handler.getLastPayload().contains("\"amount\": 42"));
+	}
+
+	@Test
+	void ingestBatch_insertsOnceAndFlagsDuplicatesInsideAndAcrossBatches() {
+		List<WebhookIngestionService.IngestionResult> first = ingestionService.ingestBatch(List.of(
+				new WebhookIngestionService.IngestRequest("test", "evt_batch_1", bytes("{\"id\":\"evt_batch_1\"}")),
+				new WebhookIngestionService.IngestRequest("test", "evt_batch_2", bytes("{\"id\":\"evt_batch_2\"}")),
+				new WebhookIngestionService.IngestRequest("test", "evt_batch_1", bytes("{\"id\":\"evt_batch_1\"}"))
+		));
+		assertFalse(first.get(0).duplicate());
+		assertFalse(first.get(1).duplicate());
+		assertTrue(first.get(2).duplicate());
+		assertNotNull(first.get(0).eventId());
+
+		List<WebhookIngestionService.IngestionResult> second = ingestionService.ingestBatch(List.of(
+				new WebhookIngestionService.IngestRequest("test", "evt_batch_2", bytes("{\"id\":\"evt_batch_2\"}")),
+				new WebhookIngestionService.IngestRequest("other", "evt_batch_2", bytes("{\"id\":\"evt_batch_2\"}"))
+		));
+		assertTrue(second.get(0).duplicate());
+		assertFalse(second.get(1).duplicate());
+
+		assertEquals(3L, repository.count());
+		assertEquals(3, jdbcTemplate.queryForObject("select count(*) from webhook_event_payloads", Integer.class));
+	}
+
+	@Test
+	void ingest_duplicateIsReportedWithoutAnException() {
+		WebhookIngestionService.IngestionResult first = ingestionService.ingest("test", "evt_single", bytes("{\"id\":\"evt_single\"}"));
+		WebhookIngestionService.IngestionResult second = ingestionService.ingest("test", "evt_single", bytes("{\"id\":\"evt_single\"}"));
+
+		assertFalse(first.duplicate());
+		assertNotNull(first.eventId());
+		assertTrue(second.duplicate());
+		assertNull(second.eventId());
+		assertEquals(1L, repository.count());
+	}
+
+	@Test
+	void ingest_concurrentRequestsAreAllCommitted() throws Exception {
+		try (ExecutorService callers = Executors.newFixedThreadPool(8)) {
+			List<Future<?>> sends = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				String payload = "{\"id\":\"evt_concurrent_" + (i % 20) + "\"}";
+				sends.add(callers.submit(() -> {
+					sendSignedWebhook("test", payload);
+					return null;
+				}));
+			}
+			for (Future<?> send : sends) {
+				send.get(30, TimeUnit.SECONDS);
+			}
+		}
+
+		assertEquals(20L, repository.count());
+	}
+
 	@Test
 	void idempotency_sameWebhookTwice_oneRow_processedOnce() throws Exception {
 		String payload = "{\"id\":\"evt_idempotent\"}";
@@ -158,6 +296,519 @@ class WebhookFlowIntegrationTests {
 		assertNull(finalEvent.getNextRetryAt());
 	}
 
+	@Test
+	void batchMode_claimsSeveralEventsAndWritesEachTransition() throws Exception {
+		handler.failNextTimesForEvent("evt_batch_2", 1);
+		sendSignedWebhook("test", "{\"id\":\"evt_batch_1\"}");
+		sendSignedWebhook("test", "{\"id\":\"evt_batch_2\"}");
+		sendSignedWebhook("test", "{\"id\":\"evt_batch_3\"}");
+
+		int processed = processor.processEligibleBatch(5);
+		assertEquals(3, processed);
+		assertEquals(3, handler.getHandledCount());
+
+		assertEquals(WebhookEventState.SUCCESS,
+				repository.findBySourceAndExternalEventId("test", "evt_batch_1").orElseThrow().getState());
+		WebhookEvent failed = repository.findBySourceAndExternalEventId("test", "evt_batch_2").orElseThrow();
+		assertEquals(WebhookEventState.FAILED, failed.getState());
+		assertEquals(1, failed.getRetryCount());
+		assertEquals(WebhookEventState.SUCCESS,
+				repository.findBySourceAndExternalEventId("test", "evt_batch_3").orElseThrow().getState());
+
+		assertEquals(0, processor.processEligibleBatch(5));
+	}
+
+	@Test
+	void fairClaim_sharesBatchesBetweenSourcesAndCapsInFlight() {
+		Instant base = Instant.now().minus(Duration.ofMinutes(10));
+		for (int i = 0; i < 10; i++) {
+			insertEventAt("noisy", "evt_noisy_" + i, "RECEIVED", base.plusSeconds(i));
+		}
+		for (int i = 0; i < 3; i++) {
+			insertEventAt("capped", "evt_capped_" + i, "RECEIVED", base.plusSeconds(30 + i));
+		}
+		insertEventAt("quiet", "evt_quiet", "RECEIVED", base.plusSeconds(60));
+
+		List<WebhookEvent> first = scheduler.claim(4, "fair-worker", Duration.ofMinutes(5));
+		assertEquals(Map.of("noisy", 2L, "capped", 1L, "quiet", 1L), countBySource(first));
+
+		// "capped" already has its one event in flight, so the rest of the batch goes to "noisy".
+		List<WebhookEvent> second = scheduler.claim(4, "fair-worker", Duration.ofMinutes(5));
+		assertEquals(Map.of("noisy", 4L), countBySource(second));
+	}
+
+	@Test
+	void fairClaim_locksAboutTwiceTheBatchHoweverManySourcesArePending() throws Exception {
+		Instant base = Instant.now().minus(Duration.ofMinutes(10));
+		for (int s = 0; s < 8; s++) {
+			for (int i = 0; i < 10; i++) {
+				insertEventAt("wide_" + s, "evt_wide_" + s + "_" + i, "RECEIVED", base.plusSeconds(i));
+			}
+		}
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		CountDownLatch claimed = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		try (ExecutorService claimer = Executors.newSingleThreadExecutor()) {
+			Future<Integer> batch = claimer.submit(() -> transaction.execute(status -> {
+				int size = scheduler.claim(4, "fair-worker", Duration.ofMinutes(5)).size();
+				claimed.countDown();
+				try {
+					commit.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return size;
+			}));
+			assertTrue(claimed.await(10, TimeUnit.SECONDS));
+
+			Integer lockable = jdbcTemplate.queryForObject(
+					"select count(*) from (select id from webhook_events where state = 'RECEIVED' for update skip locked) l",
+					Integer.class);
+			commit.countDown();
+			assertEquals(4, batch.get(10, TimeUnit.SECONDS));
+			// Each of the 8 sources used to lock up to the whole batch: 32 rows.
+			assertTrue(80 - lockable <= 8, "locked " + (80 - lockable) + " rows for a batch of 4");
+		}
+	}
+
+	@Test
+	void orderingKey_holdsBackLaterEventsOfTheSameKeyUntilTheEarlierOneSettles() {
+		ingestionService.ingestBatch(List.of(
+				new WebhookIngestionService.IngestRequest("ordered", "evt_c1_1", bytes("{\"id\":\"evt_c1_1\",\"customer\":{\"id\":\"c1\"}}")),
+				new WebhookIngestionService.IngestRequest("ordered", "evt_c1_2", bytes("{\"id\":\"evt_c1_2\",\"customer\":{\"id\":\"c1\"}}")),
+				new WebhookIngestionService.IngestRequest("ordered", "evt_c2_1", bytes("{\"id\":\"evt_c2_1\",\"customer\":{\"id\":\"c2\"}}")),
+				new WebhookIngestionService.IngestRequest("ordered", "evt_none", bytes("{\"id\":\"evt_none\"}")),
+				new WebhookIngestionService.IngestRequest("serial", "evt_serial_1", bytes("{\"id\":\"evt_serial_1\"}")),
+				new WebhookIngestionService.IngestRequest("serial", "evt_serial_2", bytes("{\"id\":\"evt_serial_2\"}"))
+		));
+		assertEquals("c1", repository.findBySourceAndExternalEventId("ordered", "evt_c1_2").orElseThrow().getOrderingKey());
+		assertNull(repository.findBySourceAndExternalEventId("ordered", "evt_none").orElseThrow().getOrderingKey());
+		assertEquals("serial", repository.findBySourceAndExternalEventId("serial", "evt_serial_1").orElseThrow().getOrderingKey());
+
+		List<String> first = claimedIds(10);
+		assertEquals(List.of("evt_c1_1", "evt_c2_1", "evt_none", "evt_serial_1"), first);
+		assertEquals(List.of(), claimedIds(10), "later events wait while their key is in flight");
+
+		jdbcTemplate.update("update webhook_events set state = 'SUCCESS' where external_event_id in ('evt_c1_1', 'evt_serial_1')");
+		assertEquals(List.of("evt_c1_2", "evt_serial_2"), claimedIds(10));
+	}
+
+	@Test
+	void orderingKey_laterEventIsNotClaimableWhileAnEarlierOneIsUncommitted() throws Exception {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		CountDownLatch firstInserted = new CountDownLatch(1);
+		CountDownLatch commitFirst = new CountDownLatch(1);
+		try (ExecutorService writers = Executors.newFixedThreadPool(2)) {
+			Future<?> first = writers.submit(() -> transaction.executeWithoutResult(status -> {
+				ingestionService.ingestBatch(List.of(new WebhookIngestionService.IngestRequest(
+						"ordered", "evt_tx_1", bytes("{\"id\":\"evt_tx_1\",\"customer\":{\"id\":\"c1\"}}"))));
+				firstInserted.countDown();
+				try {
+					commitFirst.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			assertTrue(firstInserted.await(10, TimeUnit.SECONDS));
+			Future<?> second = writers.submit(() -> ingestionService.ingestBatch(List.of(new WebhookIngestionService.IngestRequest(
+					"ordered", "evt_tx_2", bytes("{\"id\":\"evt_tx_2\",\"customer\":{\"id\":\"c1\"}}")))));
+
+			// The second insert waits for the first transaction instead of committing a later sequence value.
+			Thread.sleep(300);
+			assertFalse(second.isDone());
+			assertEquals(List.of(), claimedIds(10));
+
+			commitFirst.countDown();
+			first.get(10, TimeUnit.SECONDS);
+			second.get(10, TimeUnit.SECONDS);
+		}
+
+		assertEquals(List.of("evt_tx_1"), claimedIds(10));
+		assertEquals(List.of("evt_tx_1", "evt_tx_2"), jdbcTemplate.queryForList(
+				"select external_event_id from webhook_events where ordering_key = 'c1' order by ordering_seq", String.class));
+	}
+
+	@Test
+	void lease_expiredLeaseIsRequeuedAndProcessedAgain() throws Exception {
+		sendSignedWebhook("test", "{\"id\":\"evt_lease\"}");
+
+		assertEquals(1, repository.claimNextEligibleEvents(1, "crashed-worker", 0, new String[0]).size());
+		WebhookEvent leased = repository.findBySourceAndExternalEventId("test", "evt_lease").orElseThrow();
+		assertEquals(WebhookEventState.PROCESSING, leased.getState());
+		assertEquals("crashed-worker", leased.getLeaseOwner());
+		assertEquals(false, processor.processNextEligibleEvent());
+
+		assertEquals(1, leaseReaper.requeueExpiredLeases());
+		WebhookEvent requeued = repository.findById(leased.getId()).orElseThrow();
+		assertEquals(WebhookEventState.FAILED, requeued.getState());
+		assertEquals(1, requeued.getRetryCount());
+		assertEquals("LeaseExpired", requeued.getFailureReason());
+		assertNull(requeued.getLeaseOwner());
+
+		assertTrue(processor.processNextEligibleEvent());
+		WebhookEvent success = repository.findById(leased.getId()).orElseThrow();
+		assertEquals(WebhookEventState.SUCCESS, success.getState());
+		assertNull(success.getLeaseUntil());
+	}
+
+	@Test
+	void notify_ingestWakesListeningWorkers() throws Exception {
+		WorkerWakeup wakeup = new WorkerWakeup();
+		WebhookEventNotificationListener listener = new WebhookEventNotificationListener(
+				dataSourceProperties, wakeup, 100, 1000);
+		listener.start();
+		try {
+			long connected = wakeup.generation();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (connected == 0 && System.nanoTime() < deadline) {
+				wakeup.awaitSignal(connected, Duration.ofMillis(100));
+				connected = wakeup.generation();
+			}
+			assertTrue(connected > 0, "listener should connect and LISTEN");
+
+			sendSignedWebhook("test", "{\"id\":\"evt_notify\"}");
+			assertTrue(wakeup.awaitSignal(connected, Duration.ofSeconds(5)));
+		} finally {
+			listener.stop();
+		}
+	}
+
+	@Test
+	void retention_dropsExpiredPartitionsAndKeepsPendingOnes() throws Exception {
+		Instant now = Instant.now();
+		Instant tenDaysAgo = now.minus(Duration.ofDays(10));
+		Instant elevenDaysAgo = now.minus(Duration.ofDays(11));
+		repository.ensurePartitions(LocalDate.ofInstant(elevenDaysAgo, ZoneOffset.UTC), 0);
+
+		insertEventAt("evt_old_done", "SUCCESS", tenDaysAgo);
+		insertEventAt("evt_old_pending", "FAILED", elevenDaysAgo);
+		sendSignedWebhook("test", "{\"id\":\"evt_recent\"}");
+
+		// Retention defaults to 30 days, so 25 days from now both old partitions have expired.
+		List<String> removed = retentionJob.removeExpiredPartitions(now.plus(Duration.ofDays(25)));
+
+		assertTrue(removed.contains(partitionName(tenDaysAgo)), "expired partition should be dropped: " + removed);
+		assertFalse(removed.contains(partitionName(elevenDaysAgo)), "partition with pending events should be kept");
+		assertTrue(repository.findBySourceAndExternalEventId("test", "evt_old_done").isEmpty());
+		assertTrue(repository.findBySourceAndExternalEventId("test", "evt_old_pending").isPresent());
+		assertTrue(repository.findBySourceAndExternalEventId("test", "evt_recent").isPresent());
+		assertCountersMatchTable();
+	}
+
+	@Test
+	void retention_movesRowsOutOfTheDefaultPartitionAndRetiresThem() throws Exception {
+		Instant now = Instant.now();
+		Instant fortyDaysAgo = now.minus(Duration.ofDays(40));
+		// No partition covers that day, so the row and its payload land in the default partitions.
+		insertEventAt("evt_stray", "SUCCESS", fortyDaysAgo);
+		assertEquals(1, jdbcTemplate.queryForObject("select count(*) from webhook_events_default", Integer.class));
+
+		retentionJob.ensurePartitions(now);
+
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from webhook_events_default", Integer.class));
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from webhook_event_payloads_default", Integer.class));
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"select count(*) from " + partitionName(fortyDaysAgo), Integer.class));
+		assertTrue(repository.findBySourceAndExternalEventId("test", "evt_stray").isPresent());
+		assertCountersMatchTable();
+
+		// Creating a partition for a day with rows in the default partition no longer fails either.
+		insertEventAt("evt_stray_2", "SUCCESS", fortyDaysAgo.minus(Duration.ofDays(1)));
+		repository.ensurePartitions(LocalDate.ofInstant(fortyDaysAgo.minus(Duration.ofDays(1)), ZoneOffset.UTC), 0);
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from webhook_events_default", Integer.class));
+
+		List<String> removed = retentionJob.removeExpiredPartitions(now);
+		assertTrue(removed.contains(partitionName(fortyDaysAgo)), "moved partition should retire: " + removed);
+		assertTrue(repository.findBySourceAndExternalEventId("test", "evt_stray").isEmpty());
+		assertCountersMatchTable();
+	}
+
+	@Test
+	void dedup_keysAreForgottenAfterTheWindow() throws Exception {
+		sendSignedWebhook("test", "{\"id\":\"evt_window\"}");
+		sendSignedWebhook("test", "{\"id\":\"evt_window\"}");
+		assertEquals(1L, repository.count());
+
+		jdbcTemplate.update("update webhook_event_dedup_keys set created_at = now() - interval '30 days'");
+		assertEquals(1, retentionJob.purgeExpiredDedupKeys(Instant.now()));
+
+		sendSignedWebhook("test", "{\"id\":\"evt_window\"}");
+		assertEquals(2L, repository.count());
+	}
+
+	@Test
+	void query_pagesThroughEventsWithKeysetCursor() {
+		Instant base = Instant.now().minus(Duration.ofMinutes(10));
+		for (int i = 0; i < 5; i++) {
+			insertEventAt("evt_page_" + i, i % 2 == 0 ? "SUCCESS" : "FAILED", base.plusSeconds(i));
+		}
+
+		List<String> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			ResponseEntity<WebhookEventDto[]> response = restTemplate.getForEntity(
+					"http://localhost:" + port + "/events?limit=2" + (cursor != null ? "&cursor=" + cursor : ""),
+					WebhookEventDto[].class);
+			assertEquals(HttpStatus.OK, response.getStatusCode());
+			for (WebhookEventDto event : response.getBody()) {
+				seen.add(event.externalEventId());
+			}
+			cursor = response.getHeaders().getFirst("X-Next-Cursor");
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(3, pages);
+		assertEquals(List.of("evt_page_0", "evt_page_1", "evt_page_2", "evt_page_3", "evt_page_4"), seen);
+
+		WebhookEventDto[] failed = restTemplate.getForObject(
+				"http://localhost:" + port + "/events?state=FAILED&source=test", WebhookEventDto[].class);
+		assertEquals(2, failed.length);
+		assertEquals("evt_page_1", failed[0].externalEventId());
+
+		ResponseEntity<String> badCursor = restTemplate.getForEntity(
+				"http://localhost:" + port + "/events?cursor=not-a-cursor", String.class);
+		assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+	}
+
+	@Test
+	void export_streamsMatchingEventsAsNdjson() throws Exception {
+		Instant base = Instant.now().minus(Duration.ofMinutes(10));
+		for (int i = 0; i < 3; i++) {
+			insertEventAt("evt_export_" + i, "DEAD_LETTER", base.plusSeconds(i));
+		}
+		insertEventAt("evt_export_other", "SUCCESS", base.plusSeconds(5));
+
+		ResponseEntity<String> response = restTemplate.getForEntity(
+				"http://localhost:" + port + "/events/export?state=DEAD_LETTER", String.class);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+		String[] lines = response.getBody().split("\n");
+		assertEquals(3, lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			WebhookEventDto event = objectMapper.readValue(lines[i], WebhookEventDto.class);
+			assertEquals("evt_export_" + i, event.externalEventId());
+		}
+
+		assertEquals(4, restTemplate.getForObject(
+				"http://localhost:" + port + "/events/export?source=test", String.class).split("\n").length);
+		assertEquals(1, restTemplate.getForObject(
+				"http://localhost:" + port + "/events/export?state=SUCCESS&source=test", String.class).split("\n").length);
+		assertEquals(4, restTemplate.getForObject(
+				"http://localhost:" + port + "/events/export", String.class).split("\n").length);
+	}
+
+	@Test
+	void replay_resetsMatchingDeadLettersInChunks() throws Exception {
+		Instant base = Instant.now().minus(Duration.ofMinutes(10));
+		for (int i = 0; i < 5; i++) {
+			insertEventAt("evt_replay_" + i, "DEAD_LETTER", base.plusSeconds(i));
+		}
+		insertEventAt("other", "evt_replay_other", "DEAD_LETTER", base.plusSeconds(1));
+		insertEventAt("evt_replay_failed", "FAILED", base.plusSeconds(2));
+		jdbcTemplate.update("update webhook_events set retry_count = 6, failure_reason = 'Timeout'");
+		jdbcTemplate.update("update webhook_events set failure_reason = 'Rejected' where external_event_id = 'evt_replay_4'");
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		String request = objectMapper.writeValueAsString(Map.of(
+				"source", "test", "failureReason", "Timeout", "from", base.toString(), "to", base.plusSeconds(60).toString()));
+		ResponseEntity<Map> accepted = restTemplate.postForEntity(
+				"http://localhost:" + port + "/admin/events/replay", new HttpEntity<>(request, headers), Map.class);
+		assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+
+		String jobUrl = "http://localhost:" + port + "/admin/events/replay/" + accepted.getBody().get("id");
+		Map<?, ?> job = accepted.getBody();
+		for (int i = 0; i < 50 && !"COMPLETED".equals(job.get("status")); i++) {
+			Thread.sleep(100);
+			job = restTemplate.getForObject(jobUrl, Map.class);
+		}
+		assertEquals("COMPLETED", job.get("status"));
+		assertEquals(4, job.get("replayed"));
+
+		Map<String, String> states = jdbcTemplate.query(
+				"select external_event_id, state || ':' || retry_count from webhook_events", rs -> {
+					Map<String, String> byId = new HashMap<>();
+					while (rs.next()) {
+						byId.put(rs.getString(1), rs.getString(2));
+					}
+					return byId;
+				});
+		for (int i = 0; i < 4; i++) {
+			assertEquals("RECEIVED:0", states.get("evt_replay_" + i));
+		}
+		assertEquals("DEAD_LETTER:6", states.get("evt_replay_4"));
+		assertEquals("DEAD_LETTER:6", states.get("evt_replay_other"));
+		assertEquals("FAILED:6", states.get("evt_replay_failed"));
+
+		ResponseEntity<String> badState = restTemplate.postForEntity("http://localhost:" + port + "/admin/events/replay",
+				new HttpEntity<>("{\"states\":[\"SUCCESS\"]}", headers), String.class);
+		assertEquals(HttpStatus.BAD_REQUEST, badState.getStatusCode());
+	}
+
+	@Test
+	void replay_skipsLockedRowsWithoutStoppingEarly() throws Exception {
+		Instant base = Instant.now().minus(Duration.ofMinutes(10));
+		for (int i = 0; i < 5; i++) {
+			insertEventAt("evt_locked_" + i, "DEAD_LETTER", base.plusSeconds(i));
+		}
+
+		// The whole first chunk is locked, as by a concurrent claim, while the replay runs.
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Map<?, ?> job;
+		try (ExecutorService locker = Executors.newSingleThreadExecutor()) {
+			Future<?> holder = locker.submit(() -> transaction.executeWithoutResult(status -> {
+				jdbcTemplate.queryForList("""
+						select id from webhook_events
+						where external_event_id in ('evt_locked_0', 'evt_locked_1')
+						for update""");
+				locked.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+			HttpHeaders headers = new HttpHeaders();
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			ResponseEntity<Map> accepted = restTemplate.postForEntity("http://localhost:" + port + "/admin/events/replay",
+					new HttpEntity<>("{\"source\":\"test\"}", headers), Map.class);
+			String jobUrl = "http://localhost:" + port + "/admin/events/replay/" + accepted.getBody().get("id");
+			job = accepted.getBody();
+			for (int i = 0; i < 50 && !"COMPLETED".equals(job.get("status")); i++) {
+				Thread.sleep(100);
+				job = restTemplate.getForObject(jobUrl, Map.class);
+			}
+			release.countDown();
+			holder.get(10, TimeUnit.SECONDS);
+		}
+
+		assertEquals("COMPLETED", job.get("status"));
+		assertEquals(3, job.get("replayed"));
+		assertEquals(2, job.get("skipped"));
+		assertEquals(List.of("evt_locked_0", "evt_locked_1"), jdbcTemplate.queryForList(
+				"select external_event_id from webhook_events where state = 'DEAD_LETTER' order by created_at", String.class));
+	}
+
+	@Test
+	void stats_areServedFromCountersThatFollowEveryTransition() throws Exception {
+		sendSignedWebhook("test", "{\"id\":\"evt_stats_ok\"}");
+		sendSignedWebhook("test", "{\"id\":\"evt_stats_fail\"}");
+		handler.failNextTimesForEvent("evt_stats_fail", 1);
+		insertEventAt("other", "evt_stats_dead", "DEAD_LETTER", Instant.now().minus(Duration.ofMinutes(3)));
+		insertEventAt("other", "evt_stats_due", "RECEIVED", Instant.now().minus(Duration.ofMinutes(2)));
+		jdbcTemplate.update("update webhook_events set retry_count = 6 where external_event_id = 'evt_stats_dead'");
+		assertEquals(3, processor.processEligibleBatch(10));
+		assertCountersMatchTable();
+
+		repository.rollupEventCounts();
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from webhook_event_count_deltas", Integer.class));
+		assertCountersMatchTable();
+
+		EventStats stats = restTemplate.getForObject("http://localhost:" + port + "/events/stats", EventStats.class);
+		assertEquals(2L, stats.states().get(WebhookEventState.SUCCESS));
+		assertEquals(1L, stats.states().get(WebhookEventState.FAILED));
+		assertEquals(1L, stats.states().get(WebhookEventState.DEAD_LETTER));
+		assertEquals(0L, stats.states().get(WebhookEventState.RECEIVED));
+		assertEquals(Map.of(1, 1L), stats.retryHistogram().get(WebhookEventState.FAILED));
+		assertEquals(Map.of(6, 1L), stats.retryHistogram().get(WebhookEventState.DEAD_LETTER));
+		assertEquals(List.of("other", "test"), stats.sources().stream().map(EventStats.SourceStats::source).toList());
+		assertEquals(0.0, stats.oldestPendingAgeSeconds(), "the failed event is not due yet");
+
+		forceEligible(repository.findBySourceAndExternalEventId("test", "evt_stats_fail").orElseThrow().getId());
+		stats = restTemplate.getForObject("http://localhost:" + port + "/events/stats", EventStats.class);
+		assertTrue(stats.oldestPendingAgeSeconds() > 0);
+	}
+
+	@Test
+	void metrics_prometheusEndpointCoversIngestHandlingAndBacklog() throws Exception {
+		sendSignedWebhook("test", "{\"id\":\"evt_metrics\"}");
+		assertTrue(processor.processNextEligibleEvent());
+		insertEventAt("evt_metrics_dead", "DEAD_LETTER", Instant.now().minus(Duration.ofMinutes(5)));
+		insertEventAt("evt_metrics_due", "RECEIVED", Instant.now().minus(Duration.ofMinutes(5)));
+		backlogMetrics.refresh();
+
+		String scrape = restTemplate.getForObject("http://localhost:" + port + "/actuator/prometheus", String.class);
+		assertTrue(scrape.contains("eventrelay_ingest_seconds_count{outcome=\"accepted\",source=\"test\"}"), scrape);
+		assertTrue(scrape.contains("eventrelay_signature_verify_seconds_count{source=\"test\"}"));
+		assertTrue(scrape.contains("eventrelay_claim_seconds_bucket{result=\"claimed\""));
+		assertTrue(scrape.contains("eventrelay_handler_seconds_bucket{outcome=\"success\",source=\"test\""));
+		assertTrue(scrape.contains("eventrelay_events_transitions_total{source=\"test\",state=\"SUCCESS\"}"));
+		assertTrue(scrape.contains("eventrelay_events_backlog{source=\"test\",state=\"DEAD_LETTER\"} 1.0"));
+		assertTrue(scrape.contains("eventrelay_events_oldest_pending_age_seconds{source=\"test\"} 3"));
+
+		jdbcTemplate.update("update webhook_events set state = 'SUCCESS'");
+		backlogMetrics.refresh();
+		scrape = restTemplate.getForObject("http://localhost:" + port + "/actuator/prometheus", String.class);
+		assertTrue(scrape.contains("eventrelay_events_backlog{source=\"test\",state=\"DEAD_LETTER\"} 0.0"));
+	}
+
+	@Test
+	void ingest_malformedPayloadAfterIdIsRejectedAndNothingIsStored() throws Exception {
+		byte[] body = "{\"id\":\"evt_malformed\",\"data\":".getBytes(StandardCharsets.UTF_8);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		headers.set("X-Webhook-Signature", sign(body, "test-secret"));
+
+		ResponseEntity<String> response = restTemplate.exchange(
+				"http://localhost:" + port + "/webhooks/test", HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals(0L, repository.count());
+
+		sendSignedWebhook("test", "{\"id\":\"evt_malformed\",\"note\":\"caf\u00e9 \u2713\"}");
+		assertEquals(1L, repository.count());
+		assertEquals("caf\u00e9 \u2713", jdbcTemplate.queryForObject(
+				"select payload->>'note' from webhook_event_payloads", String.class));
+	}
+
+	@Test
+	void reactiveIngest_sharesDedupWithTheServletEndpointAndStoresThePayload() throws Exception {
+		byte[] body = bytes("{\"id\":\"evt_reactive\",\"amount\":7}");
+		assertEquals(HttpStatus.OK, postReactive(body, sign(body, "test-secret")).getStatusCode());
+		assertEquals(HttpStatus.OK, postReactive(body, sign(body, "test-secret")).getStatusCode());
+		sendSignedWebhook("test", "{\"id\":\"evt_reactive\",\"amount\":7}");
+
+		assertEquals(1L, repository.count());
+		assertEquals(7, jdbcTemplate.queryForObject(
+				"select (payload->>'amount')::int from webhook_event_payloads", Integer.class));
+		assertTrue(processor.processNextEligibleEvent());
+		assertTrue(handler.getLastPayload().contains("\"amount\": 7"));
+
+		assertEquals(HttpStatus.UNAUTHORIZED, postReactive(body, "bogus").getStatusCode());
+		byte[] malformed = bytes("{\"id\":\"evt_reactive_malformed\",\"data\":");
+		assertEquals(HttpStatus.BAD_REQUEST, postReactive(malformed, sign(malformed, "test-secret")).getStatusCode());
+		assertEquals(1L, repository.count());
+	}
+
+	private ResponseEntity<String> postReactive(byte[] body, String signature) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		headers.set("X-Webhook-Signature", signature);
+		return restTemplate.exchange("http://localhost:" + reactiveServer.getPort() + "/webhooks/test",
+				HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+	}
+
+	private void assertCountersMatchTable() {
+		Map<String, Long> counted = jdbcTemplate.query(
+				"select state, source, retry_count, count(*) from webhook_events group by state, source, retry_count", rs -> {
+					Map<String, Long> byKey = new HashMap<>();
+					while (rs.next()) {
+						byKey.put(rs.getString(1) + "/" + rs.getString(2) + "/" + rs.getInt(3), rs.getLong(4));
+					}
+					return byKey;
+				});
+		Map<String, Long> maintained = repository.countEvents().stream().collect(Collectors.toMap(
+				count -> count.getState() + "/" + count.getSource() + "/" + count.getRetryCount(), EventCount::getEvents));
+		assertEquals(counted, maintained);
+	}
+
 	private void forceEligible(UUID eventId) {
 		jdbcTemplate.update(
 				"update webhook_events set next_retry_at = now() - interval '1 second' where id = ?",
@@ -165,6 +816,42 @@ class WebhookFlowIntegrationTests {
 		);
 	}
 
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String partitionName(Instant createdAt) {
+		return "webhook_events_p" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.ofInstant(createdAt, ZoneOffset.UTC));
+	}
+
+	private List<String> claimedIds(int limit) {
+		return scheduler.claim(limit, "ordered-worker", Duration.ofMinutes(5)).stream()
+				.map(WebhookEvent::getExternalEventId)
+				.sorted()
+				.toList();
+	}
+
+	private static Map<String, Long> countBySource(List<WebhookEvent> events) {
+		return events.stream().collect(Collectors.groupingBy(WebhookEvent::getSource, Collectors.counting()));
+	}
+
+	private void insertEventAt(String externalEventId, String state, Instant createdAt) {
+		insertEventAt("test", externalEventId, state, createdAt);
+	}
+
+	private void insertEventAt(String source, String externalEventId, String state, Instant createdAt) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("""
+				insert into webhook_events (id, source, external_event_id, state, created_at, updated_at)
+				values (?, ?, ?, ?, ?, ?)
+				""",
+				id, source, externalEventId, state,
+				Timestamp.from(createdAt), Timestamp.from(createdAt));
+		jdbcTemplate.update(
+				"insert into webhook_event_payloads (event_id, created_at, payload) values (?, ?, '{}'::jsonb)",
+				id, Timestamp.from(createdAt));
+	}
+
 	private void sendSignedWebhook(String source, String payloadJson) throws Exception {
 		byte[] body = payloadJson.getBytes(StandardCharsets.UTF_8);
 		String signature = sign(body, "test-secret");
@@ -190,20 +877,22 @@ class WebhookFlowIntegrationTests {
 
 	@TestConfiguration
 	static class HandlerTestConfig {
-		@Bean(name = "defaultWebhookEventHandler")
+		@Bean
 		@Primary
-		CountingWebhookEventHandler defaultWebhookEventHandler() {
+		CountingWebhookEventHandler countingWebhookEventHandler() {
 			return new CountingWebhookEventHandler();
 		}
 	}
 
 	static class CountingWebhookEventHandler implements WebhookEventHandler {
 		private final AtomicInteger handledCount = new AtomicInteger(0);
+		private volatile String lastPayload;
 		private final ConcurrentMap<String, AtomicInteger> remainingFailuresByEventId = new ConcurrentHashMap<>();
 
 		@Override
 		public void handle(WebhookEvent event) {
 			handledCount.incrementAndGet();
+			lastPayload = event.getPayload();
 			String eventId = event.getExternalEventId();
 			AtomicInteger remaining = remainingFailuresByEventId.get(eventId);
 			if (remaining != null && remaining.getAndDecrement() > 0) {
@@ -215,12 +904,17 @@ class WebhookFlowIntegrationTests {
 			return handledCount.get();
 		}
 
+		public String getLastPayload() {
+			return lastPayload;
+		}
+
 		public void failNextTimesForEvent(String externalEventId, int times) {
 			remainingFailuresByEventId.put(externalEventId, new AtomicInteger(times));
 		}
 
 		public void reset() {
 			handledCount.set(0);
+			lastPayload = null;
 			remainingFailuresByEventId.clear();
 		}
 	}
@@ -0,0 +1,131 @@
+package com.ansh.EventRelay.webhooks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ansh.EventRelay.metrics.EventRelayMetrics;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestionResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+class ReactiveWebhookIngestionHandlerTests {
+	private static final String SECRET = "test-secret";
+
+	private ReactiveWebhookIngestionWriter writer;
+
+	@BeforeEach
+	void setUp() {
+		writer = mock(ReactiveWebhookIngestionWriter.class);
+	}
+
+	@Test
+	void signedWebhookIsWrittenAndItsRepeatIsAnsweredFromRecentKeys() throws Exception {
+		when(writer.ingest(any())).thenReturn(Mono.just(IngestionResult.accepted(UUID.randomUUID(), false)));
+		WebTestClient client = client(10, new RecentIngestKeys(100, 60));
+		byte[] body = "{\"id\":\"evt_1\"}".getBytes(StandardCharsets.UTF_8);
+
+		post(client, body, sign(body)).expectStatus().isOk();
+		post(client, body, sign(body)).expectStatus().isOk();
+
+		verify(writer, times(1)).ingest(any());
+	}
+
+	@Test
+	void badSignatureAndMissingIdAreRejectedWithoutWriting() throws Exception {
+		WebTestClient client = client(10, new RecentIngestKeys(0, 60));
+		byte[] body = "{\"id\":\"evt_1\"}".getBytes(StandardCharsets.UTF_8);
+		byte[] noId = "{\"type\":\"ping\"}".getBytes(StandardCharsets.UTF_8);
+
+		post(client, body, "bogus").expectStatus().isUnauthorized()
+				.expectBody().jsonPath("$.error").isEqualTo("unauthorized");
+		post(client, noId, sign(noId)).expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.error").isEqualTo("bad_request");
+		client.post().uri("/webhooks/test")
+				.contentType(MediaType.TEXT_PLAIN)
+				.bodyValue("hello")
+				.exchange()
+				.expectStatus().isEqualTo(415);
+
+		verify(writer, never()).ingest(any());
+	}
+
+	@Test
+	void requestsBeyondMaxInFlightAreShedWith429() throws Exception {
+		// The first request never commits, so it holds the only slot.
+		when(writer.ingest(any())).thenReturn(Mono.never());
+		ReactiveWebhookIngestionHandler handler = handler(1, new RecentIngestKeys(0, 60));
+		byte[] first = "{\"id\":\"evt_1\"}".getBytes(StandardCharsets.UTF_8);
+		byte[] second = "{\"id\":\"evt_2\"}".getBytes(StandardCharsets.UTF_8);
+
+		handler.ingest(MockServerRequest.builder()
+				.pathVariable("source", "test")
+				.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.header("X-Webhook-Signature", sign(first))
+				.body(Mono.just(first)))
+				.subscribe();
+
+		WebTestClient client = WebTestClient.bindToRouterFunction(handler.routes()).build();
+		post(client, second, sign(second)).expectStatus().isEqualTo(429)
+				.expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+	}
+
+	@Test
+	void writerThatCannotKeepUpIsAnswered503() throws Exception {
+		when(writer.ingest(any())).thenReturn(Mono.error(new ServiceUnavailableException("Ingest queue is full")));
+		WebTestClient client = client(10, new RecentIngestKeys(0, 60));
+		byte[] body = "{\"id\":\"evt_1\"}".getBytes(StandardCharsets.UTF_8);
+
+		post(client, body, sign(body)).expectStatus().isEqualTo(503)
+				.expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+				.expectBody().jsonPath("$.error").isEqualTo("service_unavailable");
+	}
+
+	private WebTestClient client(int maxInFlight, RecentIngestKeys recentKeys) {
+		return WebTestClient.bindToRouterFunction(handler(maxInFlight, recentKeys).routes()).build();
+	}
+
+	private ReactiveWebhookIngestionHandler handler(int maxInFlight, RecentIngestKeys recentKeys) {
+		WebhookSecretsProperties secrets = new WebhookSecretsProperties();
+		secrets.setSecrets(Map.of("test", SECRET));
+		return new ReactiveWebhookIngestionHandler(
+				secrets,
+				new SignatureVerifier(),
+				new WebhookEventIdExtractor(new ObjectMapper()),
+				recentKeys,
+				new EventRelayMetrics(new SimpleMeterRegistry()),
+				writer,
+				maxInFlight
+		);
+	}
+
+	private static WebTestClient.ResponseSpec post(WebTestClient client, byte[] body, String signature) {
+		return client.post().uri("/webhooks/test")
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("X-Webhook-Signature", signature)
+				.bodyValue(body)
+				.exchange();
+	}
+
+	private static String sign(byte[] body) throws Exception {
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		return Base64.getEncoder().encodeToString(mac.doFinal(body));
+	}
+}
@@ -0,0 +1,58 @@
+package com.ansh.EventRelay.webhooks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.mock;
+
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+class ReactiveWebhookIngestionWriterTests {
+	@Test
+	void concurrentEmittersFillTheQueueExactlyToCapacity() throws Exception {
+		// Not started, so nothing drains the queue.
+		ReactiveWebhookIngestionWriter writer = new ReactiveWebhookIngestionWriter(
+				mock(DatabaseClient.class), mock(WebhookIngestionService.class), false,
+				10, Duration.ofMillis(2), 1, 500, Duration.ofSeconds(10));
+		int threads = 8;
+		int perThread = 100;
+		AtomicInteger refused = new AtomicInteger();
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<?>> emitters = new ArrayList<>();
+		try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				emitters.add(pool.submit(() -> {
+					go.await();
+					for (int i = 0; i < perThread; i++) {
+						byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+						Mono<?> result = writer.ingest(new IngestRequest("test", "evt_" + thread + "_" + i, body));
+						result.onErrorResume(ex -> {
+							assertInstanceOf(ServiceUnavailableException.class, ex);
+							refused.incrementAndGet();
+							return Mono.empty();
+						}).subscribe();
+					}
+					return null;
+				}));
+			}
+			go.countDown();
+			for (Future<?> emitter : emitters) {
+				emitter.get();
+			}
+		}
+
+		assertEquals(threads * perThread - 500, refused.get());
+	}
+}
@@ -3,6 +3,7 @@ package com.ansh.EventRelay.webhooks;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import javax.crypto.Mac;
@@ -24,4 +25,52 @@ class SignatureVerifierTests {
 		assertTrue(verifier.isValid(body, secret, signature));
 		assertFalse(verifier.isValid(body, secret, signature + "broken"));
 	}
+
+	@Test
+	void pooledEnginesStayIsolatedPerSecretAndAcrossCalls() throws Exception {
+		SignatureVerifier verifier = new SignatureVerifier(1);
+		byte[] body = "{\"id\":\"evt_pool\"}".getBytes(StandardCharsets.UTF_8);
+		String signatureA = sign(body, "secret-a");
+		String signatureB = sign(body, "secret-b");
+
+		assertTrue(verifier.isValid(body, "secret-a", signatureA));
+		assertFalse(verifier.isValid(body, "secret-a", signatureB));
+		assertFalse(verifier.isValid("{}".getBytes(StandardCharsets.UTF_8), "secret-a", signatureA));
+		assertTrue(verifier.isValid(body, "secret-b", signatureB));
+		assertTrue(verifier.isValid(body, "secret-a", signatureA));
+		assertTrue(verifier.isValid(body, "secret-a", signatureA.replace("=", "")), "padding is optional");
+		assertFalse(verifier.isValid(body, "secret-a", signatureA.substring(4)));
+		assertFalse(verifier.isValid(body, "secret-a", "!" + signatureA.substring(1)));
+		assertFalse(verifier.isValid(body, "secret-a", Base64.getEncoder().encodeToString(new byte[33])));
+
+		String longSecret = "k".repeat(100);
+		assertTrue(verifier.isValid(body, longSecret, sign(body, longSecret)), "keys longer than a block are hashed first");
+	}
+
+	@Test
+	void warmVerificationOnlyAllocatesTheDecodedSignatureAndTheMacResult() throws Exception {
+		SignatureVerifier verifier = new SignatureVerifier();
+		byte[] body = new byte[4096];
+		String signature = sign(body, "test-secret");
+		for (int i = 0; i < 20_000; i++) {
+			verifier.isValid(body, "test-secret", signature);
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 10_000; i++) {
+			verifier.isValid(body, "test-secret", signature);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		// A few small arrays per call; a Mac looked up and keyed per call would cost kilobytes.
+		assertTrue(allocated < 10_000 * 256, "allocated " + allocated + " bytes for 10000 verifications");
+	}
+
+	private static String sign(byte[] body, String secret) throws Exception {
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		return Base64.getEncoder().encodeToString(mac.doFinal(body));
+	}
 }
@@ -0,0 +1,38 @@
+package com.ansh.EventRelay.webhooks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class WebhookEventIdExtractorTests {
+	private final WebhookEventIdExtractor extractor = new WebhookEventIdExtractor(new ObjectMapper());
+
+	@Test
+	void extractsTopLevelIdAndSkipsNestedOnes() {
+		assertEquals("evt_1", extract("{\"id\":\"evt_1\",\"data\":{}}"));
+		assertEquals("evt_2", extract("{\"data\":{\"id\":\"nested\",\"items\":[{\"id\":1}]},\"id\":\"evt_2\"}"));
+		assertEquals("42", extract("{\"id\":42}"));
+		assertEquals("", extract("{\"id\":{\"value\":\"evt\"}}"));
+	}
+
+	@Test
+	void returnsNullWithoutAUsableId() {
+		assertNull(extract("{\"id\":null}"));
+		assertNull(extract("{\"data\":{\"id\":\"nested\"}}"));
+		assertNull(extract("[{\"id\":\"evt\"}]"));
+		assertNull(extract("{\"data\":"));
+		assertNull(extract("not json"));
+	}
+
+	@Test
+	void stopsReadingOnceTheIdIsFound() {
+		assertEquals("evt_early", extract("{\"id\":\"evt_early\",\"data\": this is never parsed"));
+	}
+
+	private String extract(String json) {
+		return extractor.extract(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
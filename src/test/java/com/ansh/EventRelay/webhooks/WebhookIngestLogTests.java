@@ -0,0 +1,201 @@
+package com.ansh.EventRelay.webhooks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestionResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class WebhookIngestLogTests {
+	@TempDir
+	Path dir;
+
+	private final List<String> stored = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicBoolean databaseDown = new AtomicBoolean();
+
+	@Test
+	void appendedWebhooksAreDrainedAndDrainedSegmentsDeleted() throws Exception {
+		WebhookIngestLog ingestLog = newLog(512, 8);
+		ingestLog.start();
+		for (int i = 0; i < 20; i++) {
+			ingestLog.append("test", "evt_" + i, body(i));
+		}
+
+		awaitStored(20);
+		ingestLog.stop();
+		assertEquals("evt_0", stored.getFirst());
+		assertEquals("evt_19", stored.getLast());
+		assertEquals(1, segmentFiles().size(), "only the active segment is left");
+	}
+
+	@Test
+	void recoversPendingRecordsAfterRestartAndIgnoresATornTail() throws Exception {
+		databaseDown.set(true);
+		WebhookIngestLog first = newLog(4096, 8);
+		first.start();
+		first.append("test", "evt_1", body(1));
+		first.append("test", "evt_2", body(2));
+		first.stop();
+
+		// Simulate a crash in the middle of the next append: a length without a matching record.
+		Path segment = segmentFiles().getFirst();
+		int end = IngestLogSegment.HEADER_BYTES
+				+ 2 * IngestLogSegment.recordBytes("test", "evt_1", body(1));
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(4).putInt(0, 40), end);
+		}
+
+		databaseDown.set(false);
+		WebhookIngestLog second = newLog(4096, 8);
+		second.start();
+		awaitStored(2);
+		second.append("test", "evt_3", body(3));
+		awaitStored(3);
+		second.stop();
+		assertEquals(List.of("evt_1", "evt_2", "evt_3"), stored);
+	}
+
+	@Test
+	void rejectsWithServiceUnavailableWhenTheLogIsFull() {
+		databaseDown.set(true);
+		WebhookIngestLog ingestLog = newLog(256, 1);
+		ingestLog.start();
+		try {
+			assertThrows(ServiceUnavailableException.class, () -> {
+				for (int i = 0; i < 100; i++) {
+					ingestLog.append("test", "evt_" + i, body(i));
+				}
+			});
+			assertThrows(BadRequestException.class, () -> ingestLog.append("test", "evt_bad", "{\"id\":".getBytes(StandardCharsets.UTF_8)));
+		} finally {
+			ingestLog.stop();
+		}
+	}
+
+	@Test
+	void rejectsWebhooksPostgresWouldRefuseBeforeAcknowledgingThem() {
+		WebhookIngestLog ingestLog = newLog(4096, 8);
+		ingestLog.start();
+		try {
+			assertThrows(BadRequestException.class, () -> ingestLog.append("test", "x".repeat(256), body(1)));
+			assertThrows(BadRequestException.class, () -> ingestLog.append("test", "evt\u0000", body(1)));
+			assertThrows(BadRequestException.class, () -> ingestLog.append("test", "evt_nul",
+					"{\"id\":\"evt_nul\",\"note\":\"a\\u0000b\"}".getBytes(StandardCharsets.UTF_8)));
+			assertThrows(BadRequestException.class, () -> ingestLog.append("test", "evt_surrogate",
+					"{\"id\":\"evt_surrogate\",\"note\":\"\\ud800\"}".getBytes(StandardCharsets.UTF_8)));
+			assertThrows(BadRequestException.class, () -> ingestLog.append("test", "evt_utf8",
+					new byte[] {'{', '"', 'a', '"', ':', '"', (byte) 0xed, (byte) 0xa0, (byte) 0x80, '"', '}'}));
+			assertThrows(BadRequestException.class, () -> ingestLog.append("test", "evt_number",
+					"{\"id\":\"evt_number\",\"n\":1e200000}".getBytes(StandardCharsets.UTF_8)));
+
+			ingestLog.append("test", "x".repeat(255), body(1));
+			ingestLog.append("test", "evt_pair",
+					"{\"id\":\"evt_pair\",\"note\":\"\\ud83d\\ude00\"}".getBytes(StandardCharsets.UTF_8));
+		} finally {
+			ingestLog.stop();
+		}
+	}
+
+	@Test
+	void recordsPostgresStillRejectsAreParkedInsteadOfDropped() throws Exception {
+		WebhookIngestionService service = mock(WebhookIngestionService.class);
+		when(service.ingestBatch(anyList())).thenThrow(new DataIntegrityViolationException("batch"));
+		when(service.ingest(anyString(), anyString(), any())).thenAnswer(invocation -> {
+			String externalEventId = invocation.getArgument(1);
+			if (externalEventId.equals("evt_rejected")) {
+				throw new DataIntegrityViolationException("rejected");
+			}
+			stored.add(externalEventId);
+			return IngestionResult.accepted(null, false);
+		});
+		WebhookIngestLog ingestLog = new WebhookIngestLog(service, new ObjectMapper(), dir.toString(), 4096, 8, 500, 1, 10, 200);
+		ingestLog.start();
+		ingestLog.append("test", "evt_1", body(1));
+		ingestLog.append("test", "evt_rejected", body(2));
+		ingestLog.append("test", "evt_3", body(3));
+		awaitStored(2);
+		ingestLog.stop();
+
+		List<String> parked = Files.readAllLines(dir.resolve("dead-letter.ndjson"));
+		assertEquals(1, parked.size());
+		assertTrue(parked.getFirst().contains("\"externalEventId\":\"evt_rejected\""));
+		assertEquals(List.of("evt_1", "evt_3"), stored);
+	}
+
+	@Test
+	void segmentReadsLongFieldsAndReturnsUndecodableRecordsInsteadOfFailing() throws Exception {
+		IngestLogSegment segment = IngestLogSegment.create(dir, 0, 1 << 20);
+		String longId = "x".repeat(40_000);
+		segment.append("test", longId, body(1));
+		int corruptAt = segment.append("test", "evt_2", body(2));
+		segment.append("test", "evt_3", body(3));
+		segment.syncTo(segment.writePosition());
+		assertThrows(IllegalArgumentException.class, () -> segment.append("test", "x".repeat(70_000), body(4)));
+
+		// Flip a payload byte of the second record, through the file, so that its checksum no longer matches.
+		try (FileChannel channel = FileChannel.open(segmentFiles().getFirst(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {'!'}), corruptAt - 2);
+		}
+
+		List<IngestRequest> read = new ArrayList<>();
+		List<IngestLogSegment.CorruptRecord> corrupt = new ArrayList<>();
+		int end = segment.read(IngestLogSegment.HEADER_BYTES, 10, read, corrupt);
+		assertEquals(segment.writePosition(), end);
+		assertEquals(List.of(longId, "evt_3"), read.stream().map(IngestRequest::externalEventId).toList());
+		assertEquals(1, corrupt.size());
+	}
+
+	private WebhookIngestLog newLog(int segmentBytes, int maxSegments) {
+		WebhookIngestionService service = mock(WebhookIngestionService.class);
+		when(service.ingestBatch(anyList())).thenAnswer(invocation -> {
+			if (databaseDown.get()) {
+				throw new IllegalStateException("database is down");
+			}
+			List<IngestRequest> requests = invocation.getArgument(0);
+			requests.forEach(request -> stored.add(request.externalEventId()));
+			return List.of();
+		});
+		when(service.ingest(anyString(), anyString(), any())).thenThrow(new IllegalStateException("database is down"));
+		return new WebhookIngestLog(service, new ObjectMapper(), dir.toString(), segmentBytes, maxSegments, 500, 1, 10, 200);
+	}
+
+	private void awaitStored(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (stored.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, stored.size());
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("segment-")).sorted().toList();
+		}
+	}
+
+	private static byte[] body(int i) {
+		return ("{\"id\":\"evt_" + i + "\",\"n\":" + i + "}").getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,125 @@
+package com.ansh.EventRelay.webhooks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestRequest;
+import com.ansh.EventRelay.webhooks.WebhookIngestionService.IngestionResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+class WebhookIngestionBatcherTests {
+	private static final byte[] BODY = "{}".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void concurrentRequestsShareOneBatch() throws Exception {
+		WebhookIngestionService service = mock(WebhookIngestionService.class);
+		when(service.ingestBatch(anyList())).thenAnswer(invocation -> {
+			List<IngestRequest> requests = invocation.getArgument(0);
+			return requests.stream()
+					.map(request -> IngestionResult.accepted(UUID.randomUUID(), request.externalEventId().equals("evt_dup")))
+					.toList();
+		});
+
+		// A full batch flushes immediately; the long linger proves nothing was flushed before that.
+		WebhookIngestionBatcher batcher = new WebhookIngestionBatcher(service, new RecentIngestKeys(0, 60), noIngestLog(), true, 5, 60_000, 1, 100, 5000);
+		batcher.start();
+		List<Future<IngestionResult>> results = new ArrayList<>();
+		try (ExecutorService callers = Executors.newFixedThreadPool(5)) {
+			for (int i = 0; i < 5; i++) {
+				String externalEventId = i == 4 ? "evt_dup" : "evt_" + i;
+				results.add(callers.submit(() -> batcher.ingest("test", externalEventId, BODY)));
+			}
+			for (int i = 0; i < 5; i++) {
+				assertEquals(i == 4, results.get(i).get().duplicate());
+			}
+		} finally {
+			batcher.stop();
+		}
+
+		verify(service, times(1)).ingestBatch(anyList());
+		assertFalse(batcher.isRunning());
+	}
+
+	@Test
+	void failedBatchIsRetriedOneRequestAtATime() {
+		WebhookIngestionService service = mock(WebhookIngestionService.class);
+		when(service.ingestBatch(anyList())).thenThrow(new IllegalStateException("batch failed"));
+		when(service.ingest(eq("test"), eq("evt_ok"), same(BODY))).thenReturn(IngestionResult.accepted(UUID.randomUUID(), false));
+		when(service.ingest(eq("test"), eq("evt_bad"), same(BODY))).thenThrow(new IllegalArgumentException("invalid payload"));
+
+		WebhookIngestionBatcher batcher = new WebhookIngestionBatcher(service, new RecentIngestKeys(0, 60), noIngestLog(), true, 10, 0, 1, 100, 5000);
+		batcher.start();
+		try {
+			assertFalse(batcher.ingest("test", "evt_ok", BODY).duplicate());
+			assertThrows(IllegalArgumentException.class, () -> batcher.ingest("test", "evt_bad", BODY));
+		} finally {
+			batcher.stop();
+		}
+	}
+
+	@Test
+	void disabledBatcherIngestsDirectly() {
+		WebhookIngestionService service = mock(WebhookIngestionService.class);
+		UUID id = UUID.randomUUID();
+		when(service.ingest("test", "evt_direct", BODY)).thenReturn(IngestionResult.accepted(id, false));
+
+		WebhookIngestionBatcher batcher = new WebhookIngestionBatcher(service, new RecentIngestKeys(0, 60), noIngestLog(), false, 10, 2, 1, 100, 5000);
+		batcher.start();
+
+		assertFalse(batcher.isRunning());
+		assertEquals(id, batcher.ingest("test", "evt_direct", BODY).eventId());
+	}
+
+	@Test
+	void recentlyStoredKeysAreAnsweredWithoutTheDatabase() {
+		WebhookIngestionService service = mock(WebhookIngestionService.class);
+		when(service.ingest("test", "evt_storm", BODY)).thenReturn(IngestionResult.accepted(UUID.randomUUID(), false));
+
+		WebhookIngestionBatcher batcher = new WebhookIngestionBatcher(
+				service, new RecentIngestKeys(100, 60), noIngestLog(), false, 10, 2, 1, 100, 5000);
+		assertFalse(batcher.ingest("test", "evt_storm", BODY).duplicate());
+		for (int i = 0; i < 5; i++) {
+			assertTrue(batcher.ingest("test", "evt_storm", BODY).duplicate());
+		}
+
+		verify(service, times(1)).ingest("test", "evt_storm", BODY);
+	}
+
+	@Test
+	void recentKeysExpireAndEvictOldestFirst() throws Exception {
+		RecentIngestKeys keys = new RecentIngestKeys(2, 0);
+		keys.remember("test", "evt_1");
+		Thread.sleep(1);
+		assertFalse(keys.contains("test", "evt_1"), "entries older than the ttl are ignored");
+
+		RecentIngestKeys bounded = new RecentIngestKeys(2, 60);
+		bounded.remember("test", "evt_1");
+		bounded.remember("test", "evt_2");
+		bounded.remember("test", "evt_3");
+		assertFalse(bounded.contains("test", "evt_1"));
+		assertTrue(bounded.contains("test", "evt_2"));
+		assertFalse(bounded.contains("other", "evt_2"));
+	}
+
+	private static ObjectProvider<WebhookIngestLog> noIngestLog() {
+		return new StaticListableBeanFactory().getBeanProvider(WebhookIngestLog.class);
+	}
+}
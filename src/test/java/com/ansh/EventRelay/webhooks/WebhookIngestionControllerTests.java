@@ -0,0 +1,24 @@
+package com.ansh.EventRelay.webhooks;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class WebhookIngestionControllerTests {
+	@Test
+	void onlyDataExceptionsAreBlamedOnThePayload() {
+		assertTrue(WebhookIngestionController.isInvalidPayload(violation("22P02")), "invalid JSON");
+		assertTrue(WebhookIngestionController.isInvalidPayload(violation("22021")), "invalid UTF-8");
+		assertTrue(WebhookIngestionController.isInvalidPayload(violation("22P05")), "untranslatable character");
+		assertFalse(WebhookIngestionController.isInvalidPayload(violation("23505")), "unique violation");
+		assertFalse(WebhookIngestionController.isInvalidPayload(violation("23514")), "no partition for the row");
+		assertFalse(WebhookIngestionController.isInvalidPayload(new DataIntegrityViolationException("no cause")));
+	}
+
+	private static DataIntegrityViolationException violation(String sqlState) {
+		return new DataIntegrityViolationException("insert failed", new SQLException("insert failed", sqlState));
+	}
+}
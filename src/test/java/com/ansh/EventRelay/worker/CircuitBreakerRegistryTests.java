@@ -0,0 +1,129 @@
+package com.ansh.EventRelay.worker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ansh.EventRelay.events.WebhookEvent;
+import com.ansh.EventRelay.events.WebhookEventRepository;
+import com.ansh.EventRelay.events.WebhookEventState;
+import com.ansh.EventRelay.metrics.EventRelayMetrics;
+import com.ansh.EventRelay.webhooks.SourceLimitsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CircuitBreakerRegistryTests {
+	private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+	@Test
+	void opensAfterConsecutiveFailuresAndClosesAfterSuccessfulProbes() {
+		CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 3, 10_000, 2);
+		breakers.recordFailure("down", T0);
+		breakers.recordFailure("down", T0);
+		breakers.recordSuccess("down");
+		breakers.recordFailure("down", T0);
+		breakers.recordFailure("down", T0);
+		assertTrue(breakers.tryAcquire("down", T0), "a success resets the failure count");
+
+		breakers.recordFailure("down", T0);
+		assertFalse(breakers.tryAcquire("down", T0.plusSeconds(9)));
+		assertEquals(0, breakers.claimAllowance("down", T0.plusSeconds(9)));
+		assertEquals(T0.plusSeconds(10), breakers.parkedUntil("down", T0.plusSeconds(9)));
+		assertTrue(breakers.tryAcquire("up", T0), "other sources are not affected");
+
+		Instant halfOpen = T0.plusSeconds(10);
+		assertEquals(2, breakers.claimAllowance("down", halfOpen));
+		assertTrue(breakers.tryAcquire("down", halfOpen));
+		breakers.recordFailure("down", halfOpen);
+		assertFalse(breakers.tryAcquire("down", halfOpen.plusSeconds(1)), "a failed probe opens it again");
+
+		Instant retry = halfOpen.plusSeconds(10);
+		assertTrue(breakers.tryAcquire("down", retry));
+		assertTrue(breakers.tryAcquire("down", retry));
+		assertFalse(breakers.tryAcquire("down", retry), "only the probes get through");
+		breakers.recordSuccess("down");
+		breakers.recordSuccess("down");
+		assertEquals(Integer.MAX_VALUE, breakers.claimAllowance("down", retry));
+		assertEquals(List.of(), breakers.trippedSources());
+	}
+
+	@Test
+	void ignoredFailuresNeitherCountNorUseUpProbes() {
+		CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 2, 10_000, 1);
+		breakers.recordFailure("down", T0);
+		breakers.recordIgnored("down");
+		breakers.recordFailure("down", T0);
+		assertFalse(breakers.tryAcquire("down", T0), "an ignored failure does not reset the count");
+
+		Instant halfOpen = T0.plusSeconds(10);
+		assertTrue(breakers.tryAcquire("down", halfOpen));
+		breakers.recordIgnored("down");
+		assertTrue(breakers.tryAcquire("down", halfOpen), "the probe permit is handed back");
+		breakers.recordSuccess("down");
+		assertEquals(List.of(), breakers.trippedSources());
+	}
+
+	@Test
+	void onlyDestinationFailuresCountTowardsTheBreaker() {
+		assertTrue(WebhookEventProcessor.isDestinationFailure(new DestinationUnavailableException("500")));
+		assertTrue(WebhookEventProcessor.isDestinationFailure(
+				new CompletionException(new HttpConnectTimeoutException("connect timed out"))));
+		assertTrue(WebhookEventProcessor.isDestinationFailure(new CompletionException(new TimeoutException())));
+		assertFalse(WebhookEventProcessor.isDestinationFailure(
+				new RetryableHandlerException("429", Duration.ofSeconds(5))));
+		assertFalse(WebhookEventProcessor.isDestinationFailure(new IllegalStateException("HTTP 400")));
+		assertFalse(WebhookEventProcessor.isDestinationFailure(new IllegalArgumentException("bad payload")));
+	}
+
+	@Test
+	void processorParksTheRestOfABatchWithoutSpendingRetries() {
+		WebhookEventRepository repository = mock(WebhookEventRepository.class);
+		List<WebhookEvent> batch = List.of(
+				new WebhookEvent("down", "evt_1", "{}", WebhookEventState.RECEIVED),
+				new WebhookEvent("down", "evt_2", "{}", WebhookEventState.RECEIVED),
+				new WebhookEvent("down", "evt_3", "{}", WebhookEventState.RECEIVED));
+		for (int i = 0; i < batch.size(); i++) {
+			ReflectionTestUtils.setField(batch.get(i), "createdAt", T0.plusSeconds(i));
+		}
+		when(repository.claimNextEligibleEventsFairly(anyInt(), anyString(), any(Long.class), anyString(),
+				any(), any(), any(), any(), anyInt(), anyInt(), anyInt())).thenReturn(batch);
+		List<WebhookEvent> handled = new ArrayList<>();
+		WebhookEventHandler handler = event -> {
+			handled.add(event);
+			throw new DestinationUnavailableException("downstream is down");
+		};
+
+		CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 1, 30_000, 1);
+		WebhookEventProcessor processor = new WebhookEventProcessor(
+				repository, handler, new ExponentialBackoffRetryPolicy(new RetryProperties()),
+				new SourceScheduler(repository, new SourceLimitsProperties(), breakers, "fair"), breakers,
+				new EventRelayMetrics(new SimpleMeterRegistry()), "node", 300);
+		assertEquals(3, processor.processEligibleBatch(3));
+
+		ArgumentCaptor<String[]> states = ArgumentCaptor.forClass(String[].class);
+		ArgumentCaptor<Integer[]> retryCounts = ArgumentCaptor.forClass(Integer[].class);
+		verify(repository).completeLeasedEvents(anyString(), any(), any(), states.capture(), retryCounts.capture(), any(), any());
+		assertArrayEquals(new String[] {"FAILED", "RECEIVED", "RECEIVED"}, states.getValue());
+		assertArrayEquals(new Integer[] {1, 0, 0}, retryCounts.getValue());
+		assertEquals(List.of(batch.getFirst()), handled);
+		assertEquals(List.of("down"), breakers.trippedSources());
+		Duration parkedFor = Duration.between(Instant.now(), batch.get(1).getNextRetryAt());
+		assertTrue(parkedFor.compareTo(Duration.ofSeconds(25)) > 0, "parked until the breaker half-opens: " + parkedFor);
+	}
+}
@@ -0,0 +1,82 @@
+package com.ansh.EventRelay.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ansh.EventRelay.worker.RetryProperties.SourceOverride;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+class ExponentialBackoffRetryPolicyTests {
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	@Test
+	void jitteredDelaysStayWithinTheirWindowAndSpreadOut() {
+		RetryPolicy policy = new ExponentialBackoffRetryPolicy(new RetryProperties());
+
+		Set<Long> distinct = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			long first = delayMillis(policy, "test", 1, null);
+			assertTrue(first >= 30_000 && first <= 90_000, "first retry within [30s, 90s]: " + first);
+			distinct.add(first);
+
+			long fifth = delayMillis(policy, "test", 5, null);
+			assertTrue(fifth >= 30_000 && fifth <= Duration.ofHours(2).toMillis(), "capped at maxDelay: " + fifth);
+		}
+		assertTrue(distinct.size() > 900, "events that failed together do not come back together");
+	}
+
+	@Test
+	void sourceOverridesAndRetryAfterAreApplied() {
+		RetryProperties properties = new RetryProperties();
+		properties.setJitter(false);
+		SourceOverride override = new SourceOverride();
+		override.setMax(2);
+		override.setBaseDelay(Duration.ofSeconds(1));
+		override.setMultiplier(2.0);
+		properties.getSources().put("fast", override);
+		RetryPolicy policy = new ExponentialBackoffRetryPolicy(properties);
+
+		assertEquals(5, policy.getMaxRetries("test"));
+		assertEquals(2, policy.getMaxRetries("fast"));
+		assertEquals(List.of(30_000L, 120_000L, 480_000L, 1_920_000L, 7_200_000L),
+				List.of(1, 2, 3, 4, 5).stream().map(n -> delayMillis(policy, "test", n, null)).toList());
+		assertEquals(1_000, delayMillis(policy, "fast", 1, null));
+		assertEquals(2_000, delayMillis(policy, "fast", 2, null));
+
+		long retryAfter = delayMillis(policy, "test", 1, Duration.ofSeconds(5));
+		assertTrue(retryAfter >= 5_000 && retryAfter <= 10_000, "Retry-After replaces the schedule: " + retryAfter);
+	}
+
+	@Test
+	void defaultPolicyBacksOffForAnApplicationDefinedOne() {
+		RetryPolicy custom = new RetryPolicy() {
+			@Override
+			public int getMaxRetries(String source) {
+				return 1;
+			}
+
+			@Override
+			public Instant computeNextRetryAt(String source, int nextRetryCount, Instant now, Duration retryAfter) {
+				return now;
+			}
+		};
+		ApplicationContextRunner runner = new ApplicationContextRunner()
+				.withConfiguration(AutoConfigurations.of(RetryPolicyAutoConfiguration.class))
+				.withBean(RetryProperties.class);
+
+		runner.run(context -> assertTrue(context.getBean(RetryPolicy.class) instanceof ExponentialBackoffRetryPolicy));
+		runner.withBean("backoff", RetryPolicy.class, () -> custom)
+				.run(context -> assertEquals(custom, context.getBean(RetryPolicy.class)));
+	}
+
+	private static long delayMillis(RetryPolicy policy, String source, int retryCount, Duration retryAfter) {
+		return Duration.between(NOW, policy.computeNextRetryAt(source, retryCount, NOW, retryAfter)).toMillis();
+	}
+}
@@ -0,0 +1,150 @@
+package com.ansh.EventRelay.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ansh.EventRelay.events.WebhookEvent;
+import com.ansh.EventRelay.events.WebhookEventState;
+import com.ansh.EventRelay.worker.DeliveryProperties.Destination;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class HttpForwardingWebhookEventHandlerTests {
+	private HttpServer server;
+	private HttpForwardingWebhookEventHandler handler;
+	private final DeliveryProperties properties = new DeliveryProperties();
+	private final Map<String, String> received = new ConcurrentHashMap<>();
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/ok", exchange -> {
+			received.put("body", new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			received.put("idempotency-key", exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+			received.put("authorization", exchange.getRequestHeaders().getFirst("Authorization"));
+			respond(exchange, 204);
+		});
+		server.createContext("/busy", exchange -> {
+			exchange.getResponseHeaders().add("Retry-After", "7");
+			respond(exchange, 503);
+		});
+		server.createContext("/broken", exchange -> respond(exchange, 500));
+		server.createContext("/rejected", exchange -> respond(exchange, 400));
+		server.start();
+
+		destination("ok", "/ok").getHeaders().put("Authorization", "Bearer token");
+		destination("busy", "/busy");
+		destination("broken", "/broken");
+		destination("rejected", "/rejected");
+	}
+
+	@AfterEach
+	void stopStub() {
+		if (handler != null) {
+			handler.destroy();
+		}
+		server.stop(0);
+	}
+
+	@Test
+	void forwardsThePayloadAndMapsResponseStatuses() {
+		handler = new HttpForwardingWebhookEventHandler(properties);
+
+		WebhookEvent event = event("ok", "{\"id\":\"evt_1\"}");
+		handler.handle(event);
+		assertEquals("{\"id\":\"evt_1\"}", received.get("body"));
+		assertEquals(event.getId().toString(), received.get("idempotency-key"));
+		assertEquals("Bearer token", received.get("authorization"));
+
+		RetryableHandlerException busy = assertThrows(RetryableHandlerException.class,
+				() -> handler.handle(event("busy", "{}")));
+		assertEquals(Duration.ofSeconds(7), busy.getRetryAfter());
+		assertThrows(DestinationUnavailableException.class, () -> handler.handle(event("broken", "{}")));
+		assertThrows(IllegalStateException.class, () -> handler.handle(event("rejected", "{}")));
+		assertThrows(IllegalStateException.class, () -> handler.handle(event("unconfigured", "{}")));
+	}
+
+	@Test
+	void deliveryModeSelectsExactlyOneHandler() {
+		ApplicationContextRunner runner = new ApplicationContextRunner()
+				.withUserConfiguration(DefaultWebhookEventHandler.class, HttpForwardingWebhookEventHandler.class)
+				.withBean(DeliveryProperties.class, () -> properties);
+
+		runner.run(context -> assertTrue(context.getBean(WebhookEventHandler.class) instanceof DefaultWebhookEventHandler));
+		runner.withPropertyValues("eventrelay.delivery.mode=http").run(context ->
+				assertTrue(context.getBean(WebhookEventHandler.class) instanceof HttpForwardingWebhookEventHandler));
+	}
+
+	@Test
+	void keepsManyDeliveriesInFlightOnOneThread() {
+		int deliveries = 20;
+		CountDownLatch allArrived = new CountDownLatch(deliveries);
+		AtomicInteger completed = new AtomicInteger();
+		server.createContext("/slow", exchange -> {
+			allArrived.countDown();
+			try {
+				// Only answers once every delivery is in flight at the same time.
+				if (!allArrived.await(10, TimeUnit.SECONDS)) {
+					respond(exchange, 500);
+					return;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			completed.incrementAndGet();
+			respond(exchange, 200);
+		});
+		destination("slow", "/slow");
+		properties.setThreads(1);
+		handler = new HttpForwardingWebhookEventHandler(properties);
+
+		List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+		for (int i = 0; i < deliveries; i++) {
+			inFlight.add(handler.handleAsync(event("slow", "{}")));
+		}
+		CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+		assertEquals(deliveries, completed.get());
+		assertTrue(inFlight.stream().noneMatch(CompletableFuture::isCompletedExceptionally));
+	}
+
+	private Destination destination(String source, String path) {
+		Destination destination = new Destination();
+		destination.setUrl(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path));
+		properties.getSources().put(source, destination);
+		return destination;
+	}
+
+	private static WebhookEvent event(String source, String payload) {
+		WebhookEvent event = new WebhookEvent(source, "evt_" + UUID.randomUUID(), payload, WebhookEventState.PROCESSING);
+		ReflectionTestUtils.setField(event, "id", UUID.randomUUID());
+		return event;
+	}
+
+	private static void respond(HttpExchange exchange, int status) throws IOException {
+		exchange.getRequestBody().readAllBytes();
+		exchange.sendResponseHeaders(status, -1);
+		exchange.close();
+	}
+}
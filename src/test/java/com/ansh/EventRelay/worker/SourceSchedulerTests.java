@@ -0,0 +1,52 @@
+package com.ansh.EventRelay.worker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ansh.EventRelay.events.WebhookEvent;
+import com.ansh.EventRelay.events.WebhookEventRepository;
+import com.ansh.EventRelay.events.WebhookEventState;
+import com.ansh.EventRelay.webhooks.SourceLimitsProperties;
+import com.ansh.EventRelay.webhooks.SourceLimitsProperties.SourceLimit;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class SourceSchedulerTests {
+	@Test
+	void rateLimitedSourceIsOnlyOfferedItsTokensAndUnusedOnesAreReturned() {
+		SourceLimit limited = new SourceLimit();
+		limited.setRatePerSecond(0.001);
+		SourceLimitsProperties limits = new SourceLimitsProperties();
+		limits.getSources().put("limited", limited);
+
+		WebhookEventRepository repository = mock(WebhookEventRepository.class);
+		WebhookEvent event = new WebhookEvent("limited", "evt_1", "{}", WebhookEventState.RECEIVED);
+		when(repository.claimNextEligibleEventsFairly(anyInt(), anyString(), anyLong(), anyString(),
+				any(), any(), any(), any(), anyInt(), anyInt(), anyInt()))
+				.thenReturn(List.of())
+				.thenReturn(List.of(event))
+				.thenReturn(List.of());
+
+		SourceScheduler scheduler = new SourceScheduler(repository, limits, new CircuitBreakerRegistry(true, 5, 30_000, 1), "fair");
+		for (int i = 0; i < 3; i++) {
+			scheduler.claim(10, "worker", Duration.ofMinutes(5));
+		}
+
+		ArgumentCaptor<Integer[]> allowances = ArgumentCaptor.forClass(Integer[].class);
+		verify(repository, times(3)).claimNextEligibleEventsFairly(anyInt(), anyString(), anyLong(), anyString(),
+				any(), allowances.capture(), any(), any(), anyInt(), anyInt(), anyInt());
+		// One token per bucket: kept after an empty claim, spent by the claim that used it.
+		assertArrayEquals(new Integer[] {1}, allowances.getAllValues().get(0));
+		assertArrayEquals(new Integer[] {1}, allowances.getAllValues().get(1));
+		assertArrayEquals(new Integer[] {0}, allowances.getAllValues().get(2));
+	}
+}
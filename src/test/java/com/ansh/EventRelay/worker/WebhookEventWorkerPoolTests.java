@@ -0,0 +1,95 @@
+package com.ansh.EventRelay.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class WebhookEventWorkerPoolTests {
+	@Test
+	void slowBatchOnOneLoopDoesNotStallTheOthers() throws Exception {
+		int concurrency = 3;
+		CountDownLatch allInside = new CountDownLatch(concurrency);
+		CountDownLatch release = new CountDownLatch(1);
+
+		WebhookEventProcessor processor = mock(WebhookEventProcessor.class);
+		when(processor.processEligibleBatch(anyInt())).thenAnswer(invocation -> {
+			if (allInside.getCount() > 0) {
+				allInside.countDown();
+				release.await();
+				return 1;
+			}
+			return 0;
+		});
+
+		WebhookEventWorkerPool pool = new WebhookEventWorkerPool(processor, new WorkerWakeup(), concurrency, 1, false, 10, 10, 5000);
+		pool.start();
+		try {
+			assertTrue(allInside.await(5, TimeUnit.SECONDS), "every loop should be inside a batch at the same time");
+		} finally {
+			release.countDown();
+			pool.stop();
+		}
+
+		assertFalse(pool.isRunning());
+		assertEquals(concurrency, pool.getWorkerStats().size());
+		assertEquals(concurrency, pool.getWorkerStats().stream().mapToLong(WorkerStats::getProcessedEvents).sum());
+	}
+
+	@Test
+	void virtualThreadLoopsDrainTheBacklogAndRecordPerWorkerStats() throws Exception {
+		AtomicInteger backlog = new AtomicInteger(50);
+		WebhookEventProcessor processor = mock(WebhookEventProcessor.class);
+		when(processor.processEligibleBatch(anyInt())).thenAnswer(invocation -> backlog.getAndDecrement() > 0 ? 1 : 0);
+
+		WebhookEventWorkerPool pool = new WebhookEventWorkerPool(processor, new WorkerWakeup(), 4, 1, true, 10, 10, 5000);
+		pool.start();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!allIdle(pool) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		pool.stop();
+
+		assertTrue(allIdle(pool), "every loop should fall back to idle polling once the backlog is drained");
+		assertEquals(50, pool.getWorkerStats().stream().mapToLong(WorkerStats::getProcessedEvents).sum());
+	}
+
+	@Test
+	void signalWakesAnIdleLoopBeforeItsPollDelay() throws Exception {
+		AtomicInteger backlog = new AtomicInteger(0);
+		WebhookEventProcessor processor = mock(WebhookEventProcessor.class);
+		when(processor.processEligibleBatch(anyInt())).thenAnswer(invocation -> backlog.getAndDecrement() > 0 ? 1 : 0);
+
+		WorkerWakeup wakeup = new WorkerWakeup();
+		WebhookEventWorkerPool pool = new WebhookEventWorkerPool(processor, wakeup, 1, 1, false, 60_000, 60_000, 5000);
+		pool.start();
+		try {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!allIdle(pool) && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+
+			backlog.set(1);
+			wakeup.signal();
+			deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (pool.getWorkerStats().getFirst().getProcessedEvents() == 0 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+		} finally {
+			pool.stop();
+		}
+
+		assertEquals(1, pool.getWorkerStats().getFirst().getProcessedEvents());
+	}
+
+	private static boolean allIdle(WebhookEventWorkerPool pool) {
+		return pool.getWorkerStats().stream().allMatch(stats -> stats.getIdlePolls() > 0);
+	}
+}